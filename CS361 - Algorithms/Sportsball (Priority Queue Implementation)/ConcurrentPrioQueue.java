@@ -0,0 +1,269 @@
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+  A priority queue that many threads can insert into and remove from at once, built as a MultiQueue: the items are spread over
+  several small heaps ("stripes"), each with its own lock. An insert goes to a random stripe. A remove looks at the tops of
+  two random stripes without locking and takes the better of the two. Threads rarely meet on the same lock, so throughput
+  grows with the number of cores instead of queueing behind one lock.
+
+  The price is that order is relaxed. A remove returns a high priority item, but not always the highest in the whole queue.
+  With c stripes, the item removed has on average about c items ahead of it. With high probability no more than O(c log c)
+  are ahead of it, however long the queue runs. The two-choice rule keeps the stripes level, which keeps this bound from
+  growing over time (Alistarh et al., "The Power of Choice in Priority Scheduling", 2017). Equal scores leave in roughly, not
+  exactly, the order they arrived. With a single stripe the queue is exact, with the same order as PrioQueue with fused keys.
+
+  Every item's key fuses its score and a global insertion stamp (see PriorityKeys), so stripes compare with plain longs.
+*/
+
+class ConcurrentPrioQueue<E> {
+
+    private static final int BASE_SIZE = 20;
+    private static final long EMPTY = Long.MIN_VALUE; //the top key of a stripe with no items, below any real key
+
+    private final Stripe[] stripes;
+    private final AtomicLong stamp = new AtomicLong();
+    private final LongAdder size = new LongAdder();
+    private final Object restampLock = new Object();
+
+/**
+  Creates an empty queue with two stripes per available processor, the usual choice for a MultiQueue.
+*/
+    public ConcurrentPrioQueue(){
+        this(2 * Runtime.getRuntime().availableProcessors());
+    }
+
+/**
+  Creates an empty queue.
+  @param stripeCount The number of stripes. More stripes mean less contention but looser ordering.
+*/
+    public ConcurrentPrioQueue(int stripeCount){
+        if(stripeCount < 1) throw new IllegalArgumentException("A queue needs at least one stripe");
+        stripes = new Stripe[stripeCount];
+        for(int i = 0; i < stripeCount; i++){
+            stripes[i] = new Stripe();
+        }
+    }
+
+/**
+  Adds an item with a given priority score. Safe to call from any number of threads.
+  @param item The item to be added
+  @param score The priority score of the item. Larger numbers mean higher priority, and will exit the queue sooner.
+*/
+    public void insert(E item, int score){
+        ThreadLocalRandom rand = ThreadLocalRandom.current();
+        while(true){
+            //try random stripes until one is free, rather than waiting on a busy one
+            Stripe s = stripes[rand.nextInt(stripes.length)];
+            if(!s.lock.tryLock()){
+                if(stripes.length > 1) continue;
+                s.lock.lock();
+            }
+            try{
+                //the stamp is taken under the stripe lock, so a restamp, which holds every lock, never misses one
+                long t = stamp.incrementAndGet();
+                if(t < PriorityKeys.MAX_STAMP){ //the last stamp is never used, since it could make a key equal to EMPTY
+                    s.push(PriorityKeys.key(score, t), item);
+                    size.increment();
+                    return;
+                }
+            }
+            finally{
+                s.lock.unlock();
+            }
+            restamp();
+        }
+    }
+
+/**
+  Removes a high priority item: the better of the top items of two randomly chosen stripes. Safe to call from any number of
+  threads. See the class comment for how far this can be from the single highest priority item.
+  @return The item removed, or null if the queue was found empty.
+*/
+    public E remove(){
+        ThreadLocalRandom rand = ThreadLocalRandom.current();
+        for(int attempt = 0; attempt < 4 * stripes.length; attempt++){
+            Stripe a = stripes[rand.nextInt(stripes.length)];
+            Stripe b = stripes[rand.nextInt(stripes.length)];
+            Stripe best = (b.top > a.top) ? b : a;
+            if(best.top == EMPTY){
+                if(size.sum() == 0) return null;
+                continue;
+            }
+            if(!best.lock.tryLock()) continue;
+            try{
+                if(best.count > 0){
+                    size.decrement();
+                    return best.pop();
+                }
+            }
+            finally{
+                best.lock.unlock();
+            }
+        }
+        return removeAny();
+    }
+
+/**
+  Returns the number of items in the queue. While other threads are inserting or removing, this is only an estimate.
+  @return The number of items in the queue.
+*/
+    public int getSize(){
+        return (int)size.sum();
+    }
+
+/**
+  Returns the number of stripes the items are spread over.
+  @return The stripe count.
+*/
+    public int stripeCount(){
+        return stripes.length;
+    }
+
+/**
+  Clears the queue, removing all items.
+*/
+    public void clear(){
+        lockAll();
+        try{
+            for(Stripe s : stripes){
+                size.add(-s.count);
+                s.clear();
+            }
+        }
+        finally{
+            unlockAll();
+        }
+    }
+
+    //random picks kept missing, such as when only a few stripes hold items: take the best top of a full sweep instead
+    private E removeAny(){
+        while(true){
+            Stripe best = null;
+            for(Stripe s : stripes){
+                if(s.top != EMPTY && (best == null || s.top > best.top)) best = s;
+            }
+            if(best == null) return null;
+            best.lock.lock();
+            try{
+                if(best.count > 0){
+                    size.decrement();
+                    return best.pop();
+                }
+            }
+            finally{
+                best.lock.unlock();
+            }
+        }
+    }
+
+    //renumbers every stamp in the queue from 1, in order, once the stamps run out
+    private void restamp(){
+        synchronized(restampLock){
+            if(stamp.get() < PriorityKeys.MAX_STAMP) return; //another thread already did it
+            lockAll();
+            try{
+                int total = 0;
+                for(Stripe s : stripes){
+                    total += s.count;
+                }
+                long[] all = new long[total];
+                int at = 0;
+                for(Stripe s : stripes){
+                    System.arraycopy(s.keys, 0, all, at, s.count);
+                    at += s.count;
+                }
+                PriorityKeys.restamp(all, 0, 1, total);
+                at = 0;
+                for(Stripe s : stripes){
+                    System.arraycopy(all, at, s.keys, 0, s.count);
+                    at += s.count;
+                    s.publishTop();
+                }
+                stamp.set(total);
+            }
+            finally{
+                unlockAll();
+            }
+        }
+    }
+
+    //locks are always taken in stripe order, so two threads locking everything cannot deadlock
+    private void lockAll(){
+        for(Stripe s : stripes){
+            s.lock.lock();
+        }
+    }
+
+    private void unlockAll(){
+        for(Stripe s : stripes){
+            s.lock.unlock();
+        }
+    }
+
+    //one heap of fused keys, guarded by its lock, with its top key published for lock-free peeking
+    private static final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        volatile long top = EMPTY;
+        long[] keys = new long[BASE_SIZE];
+        Object[] elems = new Object[BASE_SIZE];
+        int count;
+
+        void push(long key, Object item){
+            if(count == keys.length){
+                keys = Arrays.copyOf(keys, count * 2);
+                elems = Arrays.copyOf(elems, count * 2);
+            }
+            int index = count++;
+            while(index > 0){
+                int parent = (index - 1) / 2;
+                if(keys[parent] >= key) break;
+                keys[index] = keys[parent];
+                elems[index] = elems[parent];
+                index = parent;
+            }
+            keys[index] = key;
+            elems[index] = item;
+            publishTop();
+        }
+
+        @SuppressWarnings("unchecked")
+        <E> E pop(){
+            E removed = (E)elems[0];
+            count--;
+            long key = keys[count];
+            Object item = elems[count];
+            elems[count] = null;
+            if(count > 0){
+                int index = 0;
+                int half = count / 2;
+                while(index < half){
+                    int child = 2 * index + 1;
+                    if(child + 1 < count && keys[child + 1] > keys[child]) child++;
+                    if(key >= keys[child]) break;
+                    keys[index] = keys[child];
+                    elems[index] = elems[child];
+                    index = child;
+                }
+                keys[index] = key;
+                elems[index] = item;
+            }
+            publishTop();
+            return removed;
+        }
+
+        void clear(){
+            keys = new long[BASE_SIZE];
+            elems = new Object[BASE_SIZE];
+            count = 0;
+            publishTop();
+        }
+
+        void publishTop(){
+            top = (count == 0) ? EMPTY : keys[0];
+        }
+    }
+}
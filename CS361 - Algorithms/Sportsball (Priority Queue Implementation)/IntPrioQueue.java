@@ -0,0 +1,71 @@
+import java.util.NoSuchElementException;
+
+/**
+  A PrioQueue for int items, such as player or job ids, that stores nothing but primitives. It is a LongPrioQueue whose items
+  are widened to long on the way in and narrowed back on the way out, which is exact for every int, so the heap itself lives in
+  one place. See LongPrioQueue for how entries are laid out.
+
+  Like PrioQueue, items with a greater score are removed sooner, and items with equal scores leave in the order they arrived.
+*/
+
+class IntPrioQueue {
+
+    private final LongPrioQueue queue = new LongPrioQueue();
+
+/**
+  Creates an empty queue.
+*/
+    public IntPrioQueue(){
+    }
+
+/**
+  Adds an item with a given priority score.
+  @param item The item to be added
+  @param score The priority score of the item. Larger numbers mean higher priority, and will exit the queue sooner.
+*/
+    public void insert(int item, int score){
+        queue.insert(item, score);
+    }
+
+/**
+  Removes the highest priority item: the one with the greatest score, and of those the one that has waited longest.
+  @return The item of highest priority.
+  @throws NoSuchElementException If the queue is empty.
+*/
+    public int remove(){
+        return (int)queue.remove();
+    }
+
+/**
+  Returns the highest priority item without removing it.
+  @return The item remove() would return next.
+  @throws NoSuchElementException If the queue is empty.
+*/
+    public int peek(){
+        return (int)queue.peek();
+    }
+
+/**
+  Returns the score of the highest priority item.
+  @return The score of the item remove() would return next.
+  @throws NoSuchElementException If the queue is empty.
+*/
+    public int peekScore(){
+        return queue.peekScore();
+    }
+
+/**
+  Returns the size of the queue.
+  @return The number of items in the queue.
+*/
+    public int getSize(){
+        return queue.getSize();
+    }
+
+/**
+  Clears the queue, removing all items.
+*/
+    public void clear(){
+        queue.clear();
+    }
+}
@@ -0,0 +1,121 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+  A PrioQueue for long items, such as 64-bit player or job ids, that stores nothing but primitives. Each entry is two longs
+  side by side in one array: its key, which fuses the score and insertion stamp (see PriorityKeys), and the item. Ordering an
+  entry is one long comparison and moving it is two array writes, with no boxing, casts or separate score and time arrays.
+
+  Like PrioQueue, items with a greater score are removed sooner, and items with equal scores leave in the order they arrived.
+*/
+
+class LongPrioQueue {
+
+    private static final int BASE_SIZE = 20;
+
+    private long[] heap; //entry i has its key at 2i and its item at 2i + 1
+    private int size;
+    private long timeStamp;
+
+/**
+  Creates an empty queue.
+*/
+    public LongPrioQueue(){
+        heap = new long[2 * BASE_SIZE];
+    }
+
+/**
+  Adds an item with a given priority score.
+  @param item The item to be added
+  @param score The priority score of the item. Larger numbers mean higher priority, and will exit the queue sooner.
+*/
+    public void insert(long item, int score){
+        if(timeStamp == PriorityKeys.MAX_STAMP) timeStamp = PriorityKeys.restamp(heap, 0, 2, size);
+        timeStamp++;
+        if(2 * (size + 1) > heap.length) heap = Arrays.copyOf(heap, heap.length * 2);
+        siftUp(size, PriorityKeys.key(score, timeStamp), item);
+        size++;
+    }
+
+/**
+  Removes the highest priority item: the one with the greatest score, and of those the one that has waited longest.
+  @return The item of highest priority.
+  @throws NoSuchElementException If the queue is empty.
+*/
+    public long remove(){
+        if(size == 0) throw new NoSuchElementException("Queue is empty");
+        long removed = heap[1];
+        size--;
+        if(size > 0) siftDown(0, heap[2 * size], heap[2 * size + 1]);
+        return removed;
+    }
+
+/**
+  Returns the highest priority item without removing it.
+  @return The item remove() would return next.
+  @throws NoSuchElementException If the queue is empty.
+*/
+    public long peek(){
+        if(size == 0) throw new NoSuchElementException("Queue is empty");
+        return heap[1];
+    }
+
+/**
+  Returns the score of the highest priority item.
+  @return The score of the item remove() would return next.
+  @throws NoSuchElementException If the queue is empty.
+*/
+    public int peekScore(){
+        if(size == 0) throw new NoSuchElementException("Queue is empty");
+        return PriorityKeys.score(heap[0]);
+    }
+
+/**
+  Returns the size of the queue.
+  @return The number of items in the queue.
+*/
+    public int getSize(){
+        return size;
+    }
+
+/**
+  Clears the queue, removing all items.
+*/
+    public void clear(){
+        heap = new long[2 * BASE_SIZE];
+        size = 0;
+    }
+
+    //moves the hole at index up past every parent with a smaller key, then fills it
+    private void siftUp(int index, long key, long item){
+        while(index > 0){
+            int parent = (index - 1) >>> 1;
+            long parentKey = heap[2 * parent];
+            if(parentKey >= key) break;
+            heap[2 * index] = parentKey;
+            heap[2 * index + 1] = heap[2 * parent + 1];
+            index = parent;
+        }
+        heap[2 * index] = key;
+        heap[2 * index + 1] = item;
+    }
+
+    //moves the hole at index down past every larger child, then fills it
+    private void siftDown(int index, long key, long item){
+        int half = size >>> 1; //entries below this have at least one child
+        while(index < half){
+            int child = 2 * index + 1;
+            long childKey = heap[2 * child];
+            if(child + 1 < size && heap[2 * child + 2] > childKey){
+                child++;
+                childKey = heap[2 * child];
+            }
+            if(key >= childKey) break;
+            heap[2 * index] = childKey;
+            heap[2 * index + 1] = heap[2 * child + 1];
+            index = child;
+        }
+        heap[2 * index] = key;
+        heap[2 * index + 1] = item;
+    }
+}
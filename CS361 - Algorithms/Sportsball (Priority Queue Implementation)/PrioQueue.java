@@ -1,6 +1,17 @@
+import java.util.Arrays;
+
 /**
   The PrioQueue is a FIFO data structure, but it prioritizes values based off of a priority score. Items with a greater score will be removed sooner.
 
+  A queue created with fused keys stores each item's score and insertion time together in one long (see PriorityKeys) instead of
+  the separate score and time arrays. One comparison then decides both priority and arrival order, and equal scores leave in the
+  order they arrived on the way up the heap as well as the way down.
+
+  Either kind of queue can also be a d-ary heap, where each item has up to d children instead of two. The tree is then only
+  log_d n deep, so an insert climbs fewer levels, and the d children of an item sit next to each other in the arrays, where a
+  remove compares them in one pass over one or two cache lines. Large queues gain the most, since each level is then a likely
+  cache miss; 4 is a good arity to start from.
+
   @author   David S Smith
   @version  9/29/2017
 */
@@ -15,16 +26,55 @@ class PrioQueue<E>{
 
     private final int BASE_SIZE = 20;
 
+    private final boolean fused; //true when keys replaces scores and times
+    private final int arity; //the most children an item has
+    private long[] keys;
+    private long stamp;
+
 /**
   Creates a empty Priority Queue.
 */
     public PrioQueue(){
+        this(false);
+    }
+
+/**
+  Creates an empty Priority Queue, choosing how scores and insertion times are stored.
+  @param fusedKeys True to keep each item's score and insertion time in a single long key, false for separate arrays.
+*/
+    public PrioQueue(boolean fusedKeys){
+        this(fusedKeys, 2);
+    }
+
+/**
+  Creates an empty Priority Queue with fused keys, kept as a d-ary heap. The same as PrioQueue(true, arity).
+  @param arity The number of children each item may have, at least 2. A binary heap is 2.
+*/
+    public PrioQueue(int arity){
+        this(true, arity);
+    }
+
+/**
+  Creates an empty Priority Queue kept as a d-ary heap, choosing how scores and insertion times are stored.
+  @param fusedKeys True to keep each item's score and insertion time in a single long key, false for separate arrays.
+  @param heapArity The number of children each item may have, at least 2. A binary heap is 2.
+  @throws IllegalArgumentException If heapArity is less than 2.
+*/
+    public PrioQueue(boolean fusedKeys, int heapArity){
+        if(heapArity < 2) throw new IllegalArgumentException("A heap needs an arity of at least 2");
         size = 0;
         timeStamp = 0;
+        fused = fusedKeys;
+        arity = heapArity;
 
         elems = (E[]) new Object[BASE_SIZE];
-        times = new int[BASE_SIZE];
-        scores = new int[BASE_SIZE];
+        if(fused){
+            keys = new long[BASE_SIZE];
+        }
+        else{
+            times = new int[BASE_SIZE];
+            scores = new int[BASE_SIZE];
+        }
     }
 /**
   Adds an item with a given priority score into the queue and settles it into the queue.
@@ -32,6 +82,10 @@ class PrioQueue<E>{
   @param score The priority score of the item. Larger numbers mean higher priority, and will exit the queue sooner.
 */
     public void insert(E item, int score){
+        if(fused){
+            fusedInsert(item, score);
+            return;
+        }
         //make timestamp for this item being added
         timeStamp++;
 
@@ -73,6 +127,8 @@ class PrioQueue<E>{
   @return The element of highest priority. Will not include the item's score.
 */
     public E remove(){
+        if(fused) return fusedRemove();
+        if(arity != 2) return siftRemove();
         //store removed stuff for later use
         E removedElem = elems[0];
         int removedScore = scores[0];
@@ -138,6 +194,58 @@ class PrioQueue<E>{
     }
 
 
+/**
+  Adds a batch of items at once. Items earlier in the batch count as having arrived first. When the queue is empty or the batch
+  is at least as large as the queue, the items are appended as they are and the whole heap is rebuilt bottom-up (Floyd's
+  method), which takes O(n) time in total rather than O(log n) per item. Smaller batches are inserted one at a time.
+  @param items The items to be added
+  @param scores The priority score of each item, matching items by position.
+  @param count The number of items to add, from the start of both arrays.
+*/
+    public void insertAll(E[] items, int[] scores, int count){
+        if(count < size || count == 0){
+            for(int i = 0; i < count; i++){
+                insert(items[i], scores[i]);
+            }
+            return;
+        }
+        if(fused) fusedAppend(items, scores, count);
+        else appendAll(items, scores, count);
+        size += count;
+
+        //every item after the last one with a child is a leaf, so sink the rest from the bottom up
+        for(int i = lastParent(); i >= 0; i--){
+            if(fused) fusedSiftDown(i, keys[i], elems[i]);
+            else siftDown(i);
+        }
+    }
+
+/**
+  Adds a batch of items at once, as insertAll(items, scores, items.length).
+  @param items The items to be added
+  @param scores The priority score of each item, matching items by position.
+*/
+    public void insertAll(E[] items, int[] scores){
+        insertAll(items, scores, items.length);
+    }
+
+/**
+  Removes up to k of the highest priority items, in the order remove() would return them.
+  @param k The most items to remove.
+  @param out Receives the items from out[0], highest priority first. Must have room for k items.
+  @return The number of items removed, which is less than k only if the queue ran out.
+  @throws IllegalArgumentException If k is negative or larger than out.
+*/
+    public int removeBatch(int k, E[] out){
+        if(k < 0) throw new IllegalArgumentException("Cannot remove a negative number of items");
+        if(k > out.length) throw new IllegalArgumentException("Cannot remove " + k + " items into room for " + out.length);
+        int count = Math.min(k, size);
+        for(int i = 0; i < count; i++){
+            out[i] = remove();
+        }
+        return count;
+    }
+
 /**
   Returns the size the Queue.
   @return The number of items in the queue.
@@ -152,13 +260,138 @@ class PrioQueue<E>{
   Clears queue, resetting size to 0 and removing all items.
 */
     public void clear(){
-        scores = new int[BASE_SIZE];
         elems = (E[]) new Object[BASE_SIZE];
-        times = new int[BASE_SIZE];
+        if(fused){
+            keys = new long[BASE_SIZE];
+        }
+        else{
+            scores = new int[BASE_SIZE];
+            times = new int[BASE_SIZE];
+        }
         size = 0;
         return;
     }
 
+    //insert for fused keys: the new item rises while its parent's key is smaller, which covers both score and age
+    private void fusedInsert(E item, int score){
+        if(stamp == PriorityKeys.MAX_STAMP) stamp = PriorityKeys.restamp(keys, 0, 1, size);
+        stamp++;
+        if(size + 1 > keys.length){
+            keys = Arrays.copyOf(keys, keys.length * 2);
+            elems = Arrays.copyOf(elems, elems.length * 2);
+        }
+
+        long key = PriorityKeys.key(score, stamp);
+        int currentIndex = size;
+        while(currentIndex > 0){
+            int parentIndex = (currentIndex - 1) / arity;
+            if(keys[parentIndex] >= key) break;
+            keys[currentIndex] = keys[parentIndex];
+            elems[currentIndex] = elems[parentIndex];
+            currentIndex = parentIndex;
+        }
+        keys[currentIndex] = key;
+        elems[currentIndex] = item;
+        size++;
+    }
+
+    //remove for fused keys: the last item sinks from the top while a child has a larger key
+    private E fusedRemove(){
+        E removedElem = elems[0];
+        size--;
+        long key = keys[size];
+        E item = elems[size];
+        elems[size] = null;
+        if(size > 0) fusedSiftDown(0, key, item);
+        return removedElem;
+    }
+
+    //sinks the hole at currentIndex while a child has a larger key than the given one, then fills it with key and item
+    private void fusedSiftDown(int currentIndex, long key, E item){
+        int lastParent = lastParent();
+        while(currentIndex <= lastParent){
+            //the children are side by side, from arity*i + 1 up to the end of the heap
+            int firstChild = arity * currentIndex + 1;
+            int end = Math.min(firstChild + arity, size);
+            int childIndex = firstChild;
+            long childKey = keys[firstChild];
+            for(int c = firstChild + 1; c < end; c++){
+                if(keys[c] > childKey){
+                    childIndex = c;
+                    childKey = keys[c];
+                }
+            }
+            if(key >= childKey) break;
+            keys[currentIndex] = childKey;
+            elems[currentIndex] = elems[childIndex];
+            currentIndex = childIndex;
+        }
+        keys[currentIndex] = key;
+        elems[currentIndex] = item;
+    }
+
+    //copies a batch past the end of the fused heap, stamping it in order, without settling it
+    private void fusedAppend(E[] items, int[] newScores, int count){
+        if(stamp > PriorityKeys.MAX_STAMP - count) stamp = PriorityKeys.restamp(keys, 0, 1, size);
+        if(size + count > keys.length){
+            int length = Math.max(keys.length * 2, size + count);
+            keys = Arrays.copyOf(keys, length);
+            elems = Arrays.copyOf(elems, length);
+        }
+        for(int i = 0; i < count; i++){
+            stamp++;
+            keys[size + i] = PriorityKeys.key(newScores[i], stamp);
+            elems[size + i] = items[i];
+        }
+    }
+
+    //remove for separate arrays wider than binary: the last item moves to the top and sinks on score, then time
+    private E siftRemove(){
+        E removedElem = elems[0];
+        size--;
+        elems[0] = elems[size];
+        scores[0] = scores[size];
+        times[0] = times[size];
+        elems[size] = null;
+        siftDown(0);
+        return removedElem;
+    }
+
+    //copies a batch past the end of the score and time arrays, stamping it in order, without settling it
+    private void appendAll(E[] items, int[] newScores, int count){
+        while(size + count > scores.length){
+            doubleArray();
+        }
+        for(int i = 0; i < count; i++){
+            timeStamp++;
+            elems[size + i] = items[i];
+            scores[size + i] = newScores[i];
+            times[size + i] = timeStamp;
+        }
+    }
+
+    //sinks an item below any child with a higher score, or an equal score and an earlier time
+    private void siftDown(int currentIndex){
+        int lastParent = lastParent();
+        while(currentIndex <= lastParent){
+            int firstChild = arity * currentIndex + 1;
+            int end = Math.min(firstChild + arity, size);
+            int childIndex = firstChild;
+            for(int c = firstChild + 1; c < end; c++){
+                if(outranks(c, childIndex)) childIndex = c;
+            }
+            if(!outranks(childIndex, currentIndex)) return;
+            swap(currentIndex, childIndex);
+            currentIndex = childIndex;
+        }
+    }
+
+    //true if the item at a should leave before the item at b
+    private boolean outranks(int a, int b){
+        if(scores[a] != scores[b]) return scores[a] > scores[b];
+        return times[a] < times[b];
+    }
+
     //copies contents of all arrays into a set of larger arrays
     private void doubleArray(){
         int newSize = scores.length*2;
@@ -199,9 +432,14 @@ class PrioQueue<E>{
         elems[b] = tempItem;
     }
 
+    //finds the index of the last item with a child, or -1 if there is none
+    private int lastParent(){
+        return (size < 2) ? -1 : (size - 2) / arity;
+    }
+
     //finds parent index of a given index
     private int findParent(int index){
-        return (int)((index-1)/2);
+        return (int)((index-1)/arity);
     }
     //finds left child of a given index
     private int leftChild(int index){
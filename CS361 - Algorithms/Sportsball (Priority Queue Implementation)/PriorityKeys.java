@@ -0,0 +1,70 @@
+import java.util.Arrays;
+
+/**
+  Packs a priority score and an insertion stamp into one long, so that comparing two keys as plain longs orders them first by
+  score (larger first) and then by age (older first). The score fills the high 32 bits and the stamp, inverted, the low 32,
+  so an earlier stamp makes a larger key.
+
+  Stamps run out after 2^32 - 1 insertions. The queues then renumber the stamps of the items they hold, keeping their order,
+  with restamp.
+*/
+
+final class PriorityKeys {
+
+    static final long MAX_STAMP = 0xFFFFFFFFL;
+
+    private PriorityKeys(){
+    }
+
+/**
+  Builds the key for an item.
+  @param score The item's priority score.
+  @param stamp The item's insertion stamp, from 1 to MAX_STAMP.
+  @return The fused key.
+*/
+    static long key(int score, long stamp){
+        return ((long)score << 32) | (MAX_STAMP - stamp);
+    }
+
+/**
+  Recovers the score from a key.
+  @param key A key made by key().
+  @return The item's priority score.
+*/
+    static int score(long key){
+        return (int)(key >> 32);
+    }
+
+/**
+  Recovers the stamp from a key.
+  @param key A key made by key().
+  @return The item's insertion stamp.
+*/
+    static long stamp(long key){
+        return MAX_STAMP - (key & MAX_STAMP);
+    }
+
+/**
+  Renumbers the stamps of a set of keys 1, 2, 3... in the order they were first given, leaving their scores alone. Every pair
+  of keys compares the same way afterwards, so a heap of them is still a heap.
+  @param keys The keys, at keys[offset], keys[offset + stride], ... for count entries.
+  @param offset The position of the first key.
+  @param stride The distance between keys.
+  @param count The number of keys.
+  @return The last stamp handed out, which is count.
+*/
+    static long restamp(long[] keys, int offset, int stride, int count){
+        //sort the positions by their old stamp, packing the stamp above the position so one sort does it
+        long[] order = new long[count];
+        for(int i = 0; i < count; i++){
+            order[i] = (stamp(keys[offset + i*stride]) << 31) | i;
+        }
+        Arrays.sort(order);
+        for(int rank = 0; rank < count; rank++){
+            int i = (int)(order[rank] & 0x7FFFFFFF);
+            int at = offset + i*stride;
+            keys[at] = key(score(keys[at]), rank + 1);
+        }
+        return count;
+    }
+}
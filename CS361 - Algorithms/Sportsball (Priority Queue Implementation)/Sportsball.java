@@ -1,3 +1,4 @@
+import java.util.Arrays;
 import java.util.Scanner;
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -21,6 +22,10 @@ class Sportsball {
 
         File file = new File(args[0]);
         PrioQueue<String> q = new PrioQueue<String>();
+        //players are read into a batch and added together when a GO! line needs the queue, or the file ends
+        String[] names = new String[64];
+        int[] scores = new int[64];
+        int waiting = 0;
         try{
             Scanner scan = new Scanner(file);
 
@@ -30,6 +35,8 @@ class Sportsball {
                 String line = scan.nextLine();
                 //look at the line
                 if(line.equals("GO!")){ //line is go, grab a new player
+                    q.insertAll(names, scores, waiting);
+                    waiting = 0;
                     if(q.getSize() == 0){ //no players in queue to grab
                         System.out.println("No one is ready!");
                         break loopDeeFile;
@@ -43,9 +50,16 @@ class Sportsball {
                     String[] parts = line.split("/");
                     String name = parts[0];
                     int score = Integer.parseInt(parts[1]);
-                    q.insert(name, score);
+                    if(waiting == names.length){
+                        names = Arrays.copyOf(names, waiting * 2);
+                        scores = Arrays.copyOf(scores, waiting * 2);
+                    }
+                    names[waiting] = name;
+                    scores[waiting] = score;
+                    waiting++;
                 }
             }while(scan.hasNext());
+            q.insertAll(names, scores, waiting);
             System.out.println("At the end, there were " + q.getSize() + " players left.");
         }
         catch(FileNotFoundException fnferror){
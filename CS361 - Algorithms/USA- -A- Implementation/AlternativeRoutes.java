@@ -0,0 +1,258 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+
+/**
+  Finds the K shortest loopless routes between two cities with Yen's algorithm. Each new route branches off an earlier one at
+  some "spur" city: the part before the spur is kept, the roads the earlier routes took out of the spur are blocked, and the
+  cities before the spur are off limits, so the rest of the route has to be new.
+
+  Rather than searching from scratch for every spur, one Dijkstra from the goal builds a shortest-path tree toward it first.
+  That tree is reused in two ways. When the tree's own route out of a spur avoids everything that is blocked, it is already
+  the best way on and no search runs at all. Otherwise the tree's distances still never overestimate once roads are blocked,
+  so they guide an A* search that heads almost straight to the goal.
+*/
+final class AlternativeRoutes {
+
+    private final RoadNetwork net;
+    private final int start, finish;
+
+    private final double[] toGoal; //exact distance to the goal with nothing blocked
+    private final int[] towardGoal; //next city on the tree route to the goal, or -1
+
+    private final double[] distanceTo;
+    private final int[] reachedFrom;
+    private final int[] seen, settled, blocked; //stamped with the current generation
+    private int generation;
+    private final IndexedHeap openList;
+
+    private AlternativeRoutes(RoadNetwork net, int start, int finish){
+        this.net = net;
+        this.start = start;
+        this.finish = finish;
+        int n = net.countCities();
+        toGoal = new double[n];
+        towardGoal = new int[n];
+        distanceTo = new double[n];
+        reachedFrom = new int[n];
+        seen = new int[n];
+        settled = new int[n];
+        blocked = new int[n];
+        openList = new IndexedHeap(IndexedHeap.DEFAULT_ARITY, n);
+    }
+
+    /**
+      Finds up to k shortest loopless routes between two cities.
+      @param net The network to search.
+      @param start The id of the starting city.
+      @param finish The id of the destination city.
+      @param k The most routes to return.
+      @return The routes as city ids from start to finish, shortest first. There are fewer than k if the network has fewer
+      loopless routes, and none if the cities are not connected.
+    */
+    public static ArrayList<Route> find(RoadNetwork net, int start, int finish, int k){
+        return new AlternativeRoutes(net, start, finish).find(k);
+    }
+
+    /**
+      One route: its cities in order and its total length.
+    */
+    public static final class Route implements Comparable<Route> {
+        private final int[] cities;
+        private final double distance;
+
+        private Route(int[] cities, double distance){
+            this.cities = cities;
+            this.distance = distance;
+        }
+
+        /**
+          Returns the route's cities, from start to finish.
+          @return A copy of the city ids.
+        */
+        public int[] cities(){
+            return cities.clone();
+        }
+
+        /**
+          Returns the route's length.
+          @return The total distance in Kilometers.
+        */
+        public double distance(){
+            return distance;
+        }
+
+        @Override
+        public int compareTo(Route other){
+            return Double.compare(distance, other.distance);
+        }
+
+        @Override
+        public boolean equals(Object other){
+            return (other instanceof Route) && Arrays.equals(cities, ((Route)other).cities);
+        }
+
+        @Override
+        public int hashCode(){
+            return Arrays.hashCode(cities);
+        }
+    }
+
+    private ArrayList<Route> find(int k){
+        ArrayList<Route> found = new ArrayList<Route>();
+        buildTree();
+        if(toGoal[start] == Double.POSITIVE_INFINITY || k <= 0) return found;
+
+        found.add(new Route(treeRoute(new int[0], start), toGoal[start]));
+        PriorityQueue<Route> candidates = new PriorityQueue<Route>();
+        HashSet<Route> known = new HashSet<Route>(found);
+
+        while(found.size() < k){
+            int[] last = found.get(found.size() - 1).cities;
+            double rootDistance = 0;
+            for(int i = 0; i < last.length - 1; i++){
+                int spur = last[i];
+                int[] root = Arrays.copyOf(last, i);
+
+                //the cities before the spur are off limits, and so is every road out of the spur an earlier route with this root took
+                nextGeneration();
+                for(int c : root){
+                    blocked[c] = generation;
+                }
+                int[] taken = new int[found.size()];
+                int takenCount = 0;
+                for(Route r : found){
+                    if(r.cities.length > i + 1 && startsWith(r.cities, last, i + 1)) taken[takenCount++] = r.cities[i + 1];
+                }
+
+                Route candidate = spurRoute(root, spur, rootDistance, taken, takenCount);
+                if(candidate != null && known.add(candidate)) candidates.add(candidate);
+                rootDistance += weight(spur, last[i + 1]);
+            }
+            if(candidates.isEmpty()) break;
+            found.add(candidates.poll());
+        }
+        return found;
+    }
+
+    //the best route that keeps root, leaves the spur by a road not in taken, and never returns to the root, or null if none
+    private Route spurRoute(int[] root, int spur, double rootDistance, int[] taken, int takenCount){
+        //the tree's route is the best possible; take it if nothing on it is blocked
+        if(towardGoal[spur] != -1 && !contains(taken, takenCount, towardGoal[spur])){
+            boolean clear = true;
+            for(int c = towardGoal[spur]; c != -1 && clear; c = towardGoal[c]){
+                if(blocked[c] == generation) clear = false;
+            }
+            if(clear) return new Route(treeRoute(root, spur), rootDistance + toGoal[spur]);
+        }
+
+        //otherwise search, with the tree's distances as a heuristic that is still a lower bound with roads blocked
+        openList.clear();
+        seen[spur] = generation;
+        distanceTo[spur] = 0;
+        reachedFrom[spur] = -1;
+        openList.insert(spur, toGoal[spur]);
+        while(!openList.isEmpty()){
+            int current = openList.removeMin();
+            settled[current] = generation;
+            if(current == finish) return new Route(searchedRoute(root), rootDistance + distanceTo[finish]);
+
+            for(int e = net.edgeStart(current); e < net.edgeEnd(current); e++){
+                int next = net.target(e);
+                if(blocked[next] == generation || settled[next] == generation) continue;
+                if(toGoal[next] == Double.POSITIVE_INFINITY) continue; //cut off from the goal even with nothing blocked
+                if(current == spur && contains(taken, takenCount, next)) continue;
+                double distance = distanceTo[current] + net.weight(e);
+                if(seen[next] == generation && distance >= distanceTo[next]) continue;
+                seen[next] = generation;
+                distanceTo[next] = distance;
+                reachedFrom[next] = current;
+                openList.insertOrDecrease(next, distance + toGoal[next]);
+            }
+        }
+        return null;
+    }
+
+    //Dijkstra outward from the goal, which on two-way roads gives every city's distance to it and its next step toward it
+    private void buildTree(){
+        Arrays.fill(toGoal, Double.POSITIVE_INFINITY);
+        Arrays.fill(towardGoal, -1);
+        toGoal[finish] = 0;
+        openList.clear();
+        openList.insert(finish, 0);
+        while(!openList.isEmpty()){
+            int current = openList.removeMin();
+            for(int e = net.edgeStart(current); e < net.edgeEnd(current); e++){
+                int next = net.target(e);
+                double distance = toGoal[current] + net.weight(e);
+                if(distance < toGoal[next]){
+                    toGoal[next] = distance;
+                    towardGoal[next] = current;
+                    openList.insertOrDecrease(next, distance);
+                }
+            }
+        }
+    }
+
+    //root, then the tree route from spur to the goal
+    private int[] treeRoute(int[] root, int spur){
+        int length = root.length;
+        for(int c = spur; c != -1; c = towardGoal[c]){
+            length++;
+        }
+        int[] route = Arrays.copyOf(root, length);
+        int i = root.length;
+        for(int c = spur; c != -1; c = towardGoal[c]){
+            route[i++] = c;
+        }
+        return route;
+    }
+
+    //root, then the searched route from the spur to the goal
+    private int[] searchedRoute(int[] root){
+        int length = root.length;
+        for(int c = finish; c != -1; c = reachedFrom[c]){
+            length++;
+        }
+        int[] route = Arrays.copyOf(root, length);
+        int i = length;
+        for(int c = finish; c != -1; c = reachedFrom[c]){
+            route[--i] = c;
+        }
+        return route;
+    }
+
+    //the length of the road from a to b
+    private double weight(int a, int b){
+        double best = Double.POSITIVE_INFINITY;
+        for(int e = net.edgeStart(a); e < net.edgeEnd(a); e++){
+            if(net.target(e) == b && net.weight(e) < best) best = net.weight(e);
+        }
+        return best;
+    }
+
+    private void nextGeneration(){
+        generation++;
+        if(generation == Integer.MAX_VALUE){
+            Arrays.fill(seen, 0);
+            Arrays.fill(settled, 0);
+            Arrays.fill(blocked, 0);
+            generation = 1;
+        }
+    }
+
+    private static boolean startsWith(int[] route, int[] prefix, int length){
+        for(int i = 0; i < length; i++){
+            if(route[i] != prefix[i]) return false;
+        }
+        return true;
+    }
+
+    private static boolean contains(int[] values, int count, int value){
+        for(int i = 0; i < count; i++){
+            if(values[i] == value) return true;
+        }
+        return false;
+    }
+}
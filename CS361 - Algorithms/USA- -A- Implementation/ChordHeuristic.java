@@ -0,0 +1,50 @@
+/**
+  A cheaper stand-in for the great-circle heuristic. Each city's position on the unit sphere is worked out once, when the
+  heuristic is built, and kept in three primitive arrays. An estimate is then the straight-line (chord) distance through the
+  Earth between two cities: three subtractions, three multiplies and a square root, with no trigonometry at all.
+
+  A chord is never longer than the arc it cuts off, so the estimate never exceeds the great-circle distance and A* stays exact
+  wherever the great-circle heuristic was. The two differ by about 0.1% for cities 1000km apart, so searches expand almost the
+  same cities. Unlike acos, nothing here can turn NaN for cities that are very close together.
+*/
+final class ChordHeuristic implements Heuristic {
+
+    private static final double EARTH_RADIUS = 6371;
+
+    private final RoadNetwork net;
+    private final double[] x, y, z; //scaled by the Earth's radius, so a chord comes out in Kilometers
+
+    /**
+      Precomputes the per-city values for a network.
+      @param net The network to estimate distances on.
+    */
+    public ChordHeuristic(RoadNetwork net){
+        this.net = net;
+        int n = net.countCities();
+        x = new double[n];
+        y = new double[n];
+        z = new double[n];
+        for(int i = 0; i < n; i++){
+            double cosLat = Math.cos(net.latitude(i));
+            x[i] = EARTH_RADIUS * cosLat * Math.cos(net.longitude(i));
+            y[i] = EARTH_RADIUS * cosLat * Math.sin(net.longitude(i));
+            z[i] = EARTH_RADIUS * Math.sin(net.latitude(i));
+        }
+    }
+
+    /**
+      Returns the network this heuristic was built for.
+      @return The road network.
+    */
+    public RoadNetwork network(){
+        return net;
+    }
+
+    @Override
+    public double estimate(int city, int goal){
+        double dx = x[city] - x[goal];
+        double dy = y[city] - y[goal];
+        double dz = z[city] - z[goal];
+        return Math.sqrt(dx*dx + dy*dy + dz*dz);
+    }
+}
@@ -0,0 +1,147 @@
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+  Labels the connected components of a graph with a union-find over city ids, so whether two cities can reach each other
+  at all is answered in near-constant time, without a search. An index built from a frozen network uses the network's own ids
+  and looks names up in its name pool, so labeling even a memory-mapped network creates no object per city. New cities and
+  roads are merged in as they arrive, and only cities added by name after that are kept in a map. Removing a road or city can
+  split a component, which union-find cannot undo, so the owner drops the index on a deletion and builds a fresh one from the
+  frozen network the next time it is needed.
+*/
+final class Components {
+
+    private final NamePool names;                 //names of the network the index was built from, or null
+    private final HashMap<String, Integer> added; //cities added by name since, numbered after the network's
+    private int[] parent;   //parent of each city id in its union-find tree
+    private int[] size;
+    private int count;      //cities known to the index
+    private int components;
+
+    /**
+      Creates an index with no cities.
+    */
+    public Components(){
+        this(null, 0);
+    }
+
+    //starts an index with cities 0 to n-1 of a network, each a component of its own
+    private Components(NamePool names, int n){
+        this.names = names;
+        added = new HashMap<String, Integer>();
+        parent = new int[Math.max(16, n)];
+        size = new int[parent.length];
+        for(int i = 0; i < n; i++){
+            parent[i] = i;
+            size[i] = 1;
+        }
+        count = n;
+        components = n;
+    }
+
+    /**
+      Labels the components of a frozen network, using its city ids.
+      @param net The network to label.
+      @return An index of the network's components.
+    */
+    public static Components of(RoadNetwork net){
+        Components c = new Components(net.names(), net.countCities());
+        for(int i = 0; i < net.countCities(); i++){
+            for(int e = net.edgeStart(i); e < net.edgeEnd(i); e++){
+                c.union(i, net.target(e));
+            }
+        }
+        return c;
+    }
+
+    /**
+      Adds a city as a component of its own. Does nothing if the city is already known.
+      @param name The city's name.
+    */
+    public void addCity(String name){
+        if(id(name) != -1) return;
+        if(count == parent.length){
+            parent = Arrays.copyOf(parent, count * 2);
+            size = Arrays.copyOf(size, count * 2);
+        }
+        parent[count] = count;
+        size[count] = 1;
+        added.put(name, count);
+        count++;
+        components++;
+    }
+
+    /**
+      Records a road between two cities, merging their components. Unknown cities are added first.
+      @param name1 The first city of the road.
+      @param name2 The second city of the road.
+    */
+    public void addEdge(String name1, String name2){
+        addCity(name1);
+        addCity(name2);
+        union(id(name1), id(name2));
+    }
+
+    /**
+      States whether two cities are in the same component, meaning some path joins them. This only reads the index, so any
+      number of threads may ask at once as long as nothing is being added.
+      @param name1 The first city.
+      @param name2 The second city.
+      @return True if both cities are known and connected.
+    */
+    public boolean connected(String name1, String name2){
+        int a = id(name1), b = id(name2);
+        if(a == -1 || b == -1) return false;
+        return root(a) == root(b);
+    }
+
+    /**
+      Returns the number of components.
+      @return The number of separate groups of connected cities.
+    */
+    public int count(){
+        return components;
+    }
+
+    //finds a city's id in the index: its network id if it came from the network, or the id it was given when added
+    private int id(String name){
+        if(names != null){
+            int id = names.id(name);
+            if(id != -1) return id;
+        }
+        Integer id = added.get(name);
+        return (id == null) ? -1 : id;
+    }
+
+    private void union(int a, int b){
+        a = find(a);
+        b = find(b);
+        if(a == b) return;
+        //hang the smaller tree under the larger one, so trees stay shallow
+        if(size[a] < size[b]){
+            int t = a;
+            a = b;
+            b = t;
+        }
+        parent[b] = a;
+        size[a] += size[b];
+        components--;
+    }
+
+    //finds a city's root without changing anything; union by size keeps every tree O(log n) deep
+    private int root(int city){
+        while(parent[city] != city){
+            city = parent[city];
+        }
+        return city;
+    }
+
+    //finds a city's root, halving the path on the way so later finds are shorter
+    private int find(int city){
+        while(parent[city] != city){
+            parent[city] = parent[parent[city]];
+            city = parent[city];
+        }
+        return city;
+    }
+}
@@ -0,0 +1,253 @@
+import java.util.ArrayList;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.HashSet;
+
+/**
+  A Graph that can be changed while other threads are finding paths on it. Readers work on an immutable snapshot (a frozen
+  RoadNetwork) read from a single volatile field, so they never lock or wait. Writers collect changes in a Batch, which is
+  applied to a private editable Graph under a lock, frozen, and published as the next snapshot in one step. A reader therefore
+  sees either none or all of a batch, and a query that started on an older snapshot finishes on it undisturbed.
+
+  Queries on a snapshot search the way the graph's own findPath does: with the heuristic the graph was set to use, answering
+  unreachable pairs from a connected-component index, and through the graph's route cache and search stats. Choose these on
+  the graph before handing it over. Each snapshot builds its heuristic and component index for its own network when it is
+  published, so readers never build anything.
+*/
+final class ConcurrentGraph {
+
+    private final Object writeLock = new Object();
+    private final Graph graph; //the editable graph, only touched while holding writeLock
+    private volatile Snapshot current;
+
+    /**
+      Takes over a graph. The graph must not be used directly afterwards.
+      @param graph The graph to share.
+    */
+    public ConcurrentGraph(Graph graph){
+        this.graph = graph;
+        synchronized(writeLock){
+            current = publish(graph);
+        }
+    }
+
+    /**
+      Returns the snapshot readers are currently using.
+      @return The latest published snapshot.
+    */
+    public Snapshot snapshot(){
+        return current;
+    }
+
+    /**
+      Finds a path on the latest snapshot without locking. Answers in the same form as Graph.findPath.
+      @param first The name of the first city, the starting point.
+      @param goal The name of the second city, the destination point.
+      @return The same as Graph.findPath.
+    */
+    public SimpleEntry<ArrayList<String>,Double> findPath(String first, String goal){
+        return current.findPath(first, goal);
+    }
+
+    /**
+      Starts a batch of changes. Nothing is visible to readers until the batch is committed.
+      @return An empty batch.
+    */
+    public Batch batch(){
+        return new Batch();
+    }
+
+    //freezes the graph and builds everything a snapshot answers queries with; called holding writeLock
+    private static Snapshot publish(Graph graph){
+        RoadNetwork net = graph.freeze();
+        return new Snapshot(net, graph.heuristic(net), Components.of(net), graph.routeCache(), graph.searchStats(), graph.version());
+    }
+
+    /**
+      An immutable view of the graph at one version.
+    */
+    public static final class Snapshot {
+        private final RoadNetwork net;
+        private final Heuristic heuristic;
+        private final Components components; //only read, never added to, so any number of readers can share it
+        private final RouteCache cache;
+        private final SearchStats stats;
+        private final long version;
+
+        private Snapshot(RoadNetwork net, Heuristic heuristic, Components components, RouteCache cache, SearchStats stats, long version){
+            this.net = net;
+            this.heuristic = heuristic;
+            this.components = components;
+            this.cache = cache;
+            this.stats = stats;
+            this.version = version;
+        }
+
+        /**
+          Returns the frozen network behind this snapshot.
+          @return The road network.
+        */
+        public RoadNetwork network(){
+            return net;
+        }
+
+        /**
+          Returns the graph version this snapshot was taken at.
+          @return The version.
+        */
+        public long version(){
+            return version;
+        }
+
+        /**
+          States whether a city is present in this snapshot.
+          @param name The city's name.
+          @return True if the city is present.
+        */
+        public boolean contains(String name){
+            return net.id(name) != -1;
+        }
+
+        /**
+          Finds a path on this snapshot. Answers in the same form as Graph.findPath.
+          @param first The name of the first city, the starting point.
+          @param goal The name of the second city, the destination point.
+          @return The same as Graph.findPath.
+        */
+        public SimpleEntry<ArrayList<String>,Double> findPath(String first, String goal){
+            if(net.id(first) != -1 && net.id(goal) != -1 && !components.connected(first, goal)){
+                return new SimpleEntry<ArrayList<String>,Double>(null,-1.0);
+            }
+            return Graph.cachedPath(net, heuristic, cache, stats, version, first, goal, false);
+        }
+    }
+
+    /**
+      A list of changes to apply together. Changes are checked against the graph before any of them is applied, so a batch
+      that refers to a missing city is rejected whole.
+    */
+    public final class Batch {
+        private static final int ADD_CITY = 0, DELETE_CITY = 1, ADD_EDGE = 2, DELETE_EDGE = 3;
+
+        private final ArrayList<Change> changes = new ArrayList<Change>();
+        private boolean committed;
+
+        private Batch(){
+        }
+
+        /**
+          Queues adding a city.
+          @param name The city's name.
+          @param latitude The city's latitude in degrees.
+          @param longitude The city's longitude in degrees.
+          @return This batch, for chaining.
+        */
+        public Batch addCity(String name, double latitude, double longitude){
+            return queue(new Change(ADD_CITY, name, null, latitude, longitude));
+        }
+
+        /**
+          Queues removing a city.
+          @param name The city's name.
+          @return This batch, for chaining.
+        */
+        public Batch deleteCity(String name){
+            return queue(new Change(DELETE_CITY, name, null, 0, 0));
+        }
+
+        /**
+          Queues connecting two cities, or changing the length of their existing connection.
+          @param name1 The first city in the connection.
+          @param name2 The second city in the connection.
+          @param distance The length of the edge in Kilometers.
+          @return This batch, for chaining.
+        */
+        public Batch addEdge(String name1, String name2, double distance){
+            return queue(new Change(ADD_EDGE, name1, name2, distance, 0));
+        }
+
+        /**
+          Queues removing the edge between two cities.
+          @param name1 The first city in the connection.
+          @param name2 The second city in the connection.
+          @return This batch, for chaining.
+        */
+        public Batch deleteEdge(String name1, String name2){
+            return queue(new Change(DELETE_EDGE, name1, name2, 0, 0));
+        }
+
+        /**
+          Applies every queued change and publishes the result as the new snapshot. Readers see all of the changes at once.
+          @return The published snapshot.
+          @throws IllegalStateException If the batch was already committed.
+          @throws IllegalArgumentException If a change refers to a city that will not exist when it is applied. No change is made.
+        */
+        public Snapshot commit(){
+            synchronized(writeLock){
+                if(committed) throw new IllegalStateException("Batch already committed");
+                validate();
+                for(Change c : changes){
+                    switch(c.kind){
+                        case ADD_CITY: graph.addCity(c.first, c.x, c.y); break;
+                        case DELETE_CITY: graph.deleteCity(c.first); break;
+                        case ADD_EDGE: graph.addEdge(c.first, c.second, c.x); break;
+                        default: graph.deleteEdge(c.first, c.second); break;
+                    }
+                }
+                committed = true;
+                Snapshot next = publish(graph);
+                current = next;
+                return next;
+            }
+        }
+
+        private Batch queue(Change change){
+            if(committed) throw new IllegalStateException("Batch already committed");
+            changes.add(change);
+            return this;
+        }
+
+        //replays the batch against the set of city names, so a bad batch is caught before the graph is touched
+        private void validate(){
+            HashSet<String> added = new HashSet<String>();
+            HashSet<String> removed = new HashSet<String>();
+            for(Change c : changes){
+                switch(c.kind){
+                    case ADD_CITY:
+                        added.add(c.first);
+                        removed.remove(c.first);
+                        break;
+                    case DELETE_CITY:
+                        removed.add(c.first);
+                        added.remove(c.first);
+                        break;
+                    default:
+                        requireCity(c.first, added, removed);
+                        requireCity(c.second, added, removed);
+                        break;
+                }
+            }
+        }
+
+        private void requireCity(String name, HashSet<String> added, HashSet<String> removed){
+            if(added.contains(name)) return;
+            if(removed.contains(name) || !graph.contains(name)){
+                throw new IllegalArgumentException("'" + name + "' is not a valid city.");
+            }
+        }
+    }
+
+    //one queued change
+    private static final class Change {
+        final int kind;
+        final String first, second;
+        final double x, y;
+
+        Change(int kind, String first, String second, double x, double y){
+            this.kind = kind;
+            this.first = first;
+            this.second = second;
+            this.x = x;
+            this.y = y;
+        }
+    }
+}
@@ -0,0 +1,430 @@
+import java.util.ArrayList;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.Arrays;
+
+/**
+  A Contraction Hierarchy over a RoadNetwork. Preprocessing removes cities one at a time, least important first, and whenever
+  removing a city would lengthen the shortest route between two of its neighbours it adds a shortcut edge between them that
+  remembers the city it skips. Each city keeps only its edges to cities removed after it (its "upward" edges), so a query is
+  a pair of small Dijkstra searches that climb upward from both ends and meet at the most important city on the route.
+  Shortcuts on the result are unpacked back into the real sequence of cities.
+
+  The hierarchy is immutable once built, and each thread keeps its own query state, so one hierarchy can serve many threads.
+*/
+final class ContractionHierarchy {
+
+    private static final int WITNESS_SETTLE_LIMIT = 500; //give up looking for a detour after settling this many cities
+    private static final int ESTIMATE_SETTLE_LIMIT = 50; //a cheaper limit for estimating priorities, which only sway the order
+
+    private final RoadNetwork net;
+    private final int[] rank;        //the order each city was contracted in
+    private final int[] upOffsets;   //upward edges of city i lie between upOffsets[i] and upOffsets[i+1]
+    private final int[] upTargets;
+    private final double[] upWeights;
+    private final int[] upMiddle;    //the city a shortcut skips, or -1 for an original road
+
+    private final ThreadLocal<Query> queries = new ThreadLocal<Query>(){
+        @Override
+        protected Query initialValue(){
+            return new Query(rank.length);
+        }
+    };
+
+    private ContractionHierarchy(RoadNetwork net, int[] rank, int[] upOffsets, int[] upTargets, double[] upWeights, int[] upMiddle){
+        this.net = net;
+        this.rank = rank;
+        this.upOffsets = upOffsets;
+        this.upTargets = upTargets;
+        this.upWeights = upWeights;
+        this.upMiddle = upMiddle;
+    }
+
+    /**
+      Contracts every city of a network and builds the upward search graph.
+      @param net The network to preprocess.
+      @return The finished hierarchy.
+    */
+    public static ContractionHierarchy build(RoadNetwork net){
+        return new Builder(net).build();
+    }
+
+    /**
+      Returns the network this hierarchy was built from.
+      @return The underlying road network.
+    */
+    public RoadNetwork network(){
+        return net;
+    }
+
+    /**
+      Returns the number of shortcut edges preprocessing added, counting each direction once.
+      @return The number of upward edges that are shortcuts.
+    */
+    public int countShortcuts(){
+        int count = 0;
+        for(int middle : upMiddle){
+            if(middle != -1) count++;
+        }
+        return count;
+    }
+
+    /**
+      Finds the shortest path between two cities, in the same form as Graph.findPath.
+      @param first The name of the first city, the starting point.
+      @param goal The name of the second city, the destination point.
+      @return A pair of the path's cities from start to finish and its length. Returns null if either city is invalid,
+      and a pair of null and -1 if no path exists.
+    */
+    public SimpleEntry<ArrayList<String>,Double> findPath(String first, String goal){
+        int start = net.id(first);
+        int finish = net.id(goal);
+        if((start == -1) || (finish == -1)) return null;
+
+        Query q = queries.get();
+        double distance = q.search(start, finish);
+        if(distance < 0) return new SimpleEntry<ArrayList<String>,Double>(null,-1.0);
+        return Graph.route(net, q.unpackPath(start, finish), distance);
+    }
+
+    /**
+      Finds the length of the shortest path between two cities without unpacking the route.
+      @param start The id of the starting city.
+      @param finish The id of the destination city.
+      @return The length of the shortest path, or -1 if no path exists.
+    */
+    public double distance(int start, int finish){
+        return queries.get().search(start, finish);
+    }
+
+    //returns the upward edge from lower to higher, where lower was contracted first
+    private int upwardEdge(int lower, int higher){
+        for(int e = upOffsets[lower]; e < upOffsets[lower + 1]; e++){
+            if(upTargets[e] == higher) return e;
+        }
+        throw new IllegalStateException("Missing edge in contraction hierarchy");
+    }
+
+    //appends the cities after a along the edge from a to b, expanding shortcuts through the cities they skip
+    private void unpack(int a, int b, int middle, IntBuffer out){
+        if(middle == -1){
+            out.add(b);
+            return;
+        }
+        unpack(a, middle, upMiddle[upwardEdge(middle, a)], out);
+        unpack(middle, b, upMiddle[upwardEdge(middle, b)], out);
+    }
+
+    /**
+      One thread's query state: a search climbing from each end, with generation stamps so nothing is cleared between queries.
+    */
+    private final class Query {
+        private final double[][] dist = new double[2][];
+        private final int[][] parent = new int[2][];     //city each city was reached from
+        private final int[][] parentEdge = new int[2][]; //upward edge a city was reached by, or -1 for the search's origin
+        private final int[][] seen = new int[2][];
+        private final IndexedHeap[] heaps = new IndexedHeap[2];
+        private int generation;
+        private int meet = -1;
+
+        Query(int n){
+            for(int side = 0; side < 2; side++){
+                dist[side] = new double[n];
+                parent[side] = new int[n];
+                parentEdge[side] = new int[n];
+                seen[side] = new int[n];
+                heaps[side] = new IndexedHeap(IndexedHeap.DEFAULT_ARITY, n);
+            }
+        }
+
+        //runs both upward searches, alternating between them, until neither can improve on the best meeting point
+        double search(int start, int finish){
+            generation++;
+            if(generation == Integer.MAX_VALUE){
+                Arrays.fill(seen[0], 0);
+                Arrays.fill(seen[1], 0);
+                generation = 1;
+            }
+            heaps[0].clear();
+            heaps[1].clear();
+            reach(0, start, 0.0, -1, -1);
+            reach(1, finish, 0.0, -1, -1);
+
+            double best = Double.POSITIVE_INFINITY;
+            meet = -1;
+            int side = 0;
+            while(true){
+                boolean forwardDone = heaps[0].isEmpty() || heaps[0].minKey() >= best;
+                boolean backwardDone = heaps[1].isEmpty() || heaps[1].minKey() >= best;
+                if(forwardDone && backwardDone) break;
+                if(side == 0 ? forwardDone : backwardDone) side = 1 - side;
+
+                int current = heaps[side].removeMin();
+                double base = dist[side][current];
+                int other = 1 - side;
+                if(seen[other][current] == generation && base + dist[other][current] < best){
+                    best = base + dist[other][current];
+                    meet = current;
+                }
+                for(int e = upOffsets[current]; e < upOffsets[current + 1]; e++){
+                    int next = upTargets[e];
+                    double distance = base + upWeights[e];
+                    if(seen[side][next] != generation || distance < dist[side][next]){
+                        reach(side, next, distance, current, e);
+                    }
+                }
+                side = other;
+            }
+            return (meet == -1) ? -1 : best;
+        }
+
+        //records a better distance to a city and queues it
+        private void reach(int side, int city, double distance, int from, int edge){
+            seen[side][city] = generation;
+            dist[side][city] = distance;
+            parent[side][city] = from;
+            parentEdge[side][city] = edge;
+            heaps[side].insertOrDecrease(city, distance);
+        }
+
+        //rebuilds the full route of the last search, from start through the meeting city to finish
+        int[] unpackPath(int start, int finish){
+            //the forward side climbed from start, so collect its cities and then walk them back up
+            IntBuffer up = new IntBuffer();
+            for(int c = meet; c != start; c = parent[0][c]){
+                up.add(c);
+            }
+            IntBuffer path = new IntBuffer();
+            path.add(start);
+            for(int i = up.size - 1; i >= 0; i--){
+                int c = up.items[i];
+                unpack(parent[0][c], c, upMiddle[parentEdge[0][c]], path);
+            }
+            //the backward side climbed from finish, so its edges are walked down in reverse
+            for(int c = meet; c != finish; c = parent[1][c]){
+                unpack(c, parent[1][c], upMiddle[parentEdge[1][c]], path);
+            }
+            return Arrays.copyOf(path.items, path.size);
+        }
+    }
+
+    /**
+      A growable array of ints.
+    */
+    private static final class IntBuffer {
+        int[] items = new int[16];
+        int size;
+
+        void add(int value){
+            if(size == items.length) items = Arrays.copyOf(items, size * 2);
+            items[size++] = value;
+        }
+    }
+
+    /**
+      Contracts the cities of a network in order of importance, tracking the remaining graph as growable adjacency lists.
+    */
+    private static final class Builder {
+        private final RoadNetwork net;
+        private final int n;
+        private final int[][] adjCity;
+        private final double[][] adjWeight;
+        private final int[][] adjMiddle;
+        private final int[] degree;
+        private final int[] contractedNeighbours;
+
+        //witness search scratch
+        private final double[] witnessDist;
+        private final int[] witnessSeen;
+        private final IndexedHeap witnessHeap;
+        private int witnessGeneration;
+
+        //upward edges gathered as cities are contracted
+        private final int[] rank;
+        private final IntBuffer upSource = new IntBuffer();
+        private final IntBuffer upTarget = new IntBuffer();
+        private final IntBuffer upMiddle = new IntBuffer();
+        private double[] upWeight = new double[16];
+
+        Builder(RoadNetwork net){
+            this.net = net;
+            n = net.countCities();
+            adjCity = new int[n][];
+            adjWeight = new double[n][];
+            adjMiddle = new int[n][];
+            degree = new int[n];
+            contractedNeighbours = new int[n];
+            witnessDist = new double[n];
+            witnessSeen = new int[n];
+            witnessHeap = new IndexedHeap(IndexedHeap.DEFAULT_ARITY, n);
+            rank = new int[n];
+
+            for(int c = 0; c < n; c++){
+                int size = Math.max(4, net.edgeEnd(c) - net.edgeStart(c));
+                adjCity[c] = new int[size];
+                adjWeight[c] = new double[size];
+                adjMiddle[c] = new int[size];
+                for(int e = net.edgeStart(c); e < net.edgeEnd(c); e++){
+                    if(net.target(e) != c) connect(c, net.target(e), net.weight(e), -1);
+                }
+            }
+        }
+
+        ContractionHierarchy build(){
+            IndexedHeap order = new IndexedHeap(IndexedHeap.DEFAULT_ARITY, n);
+            for(int c = 0; c < n; c++){
+                order.insert(c, priority(c));
+            }
+
+            int next = 0;
+            while(!order.isEmpty()){
+                int city = order.removeMin();
+                //priorities go stale as neighbours are contracted, so re-check before committing to this city
+                double current = priority(city);
+                if(!order.isEmpty() && current > order.minKey()){
+                    order.insert(city, current);
+                    continue;
+                }
+                contract(city);
+                rank[city] = next++;
+            }
+            return finish();
+        }
+
+        //edge difference plus the number of neighbours already contracted, which spreads contraction evenly
+        private double priority(int city){
+            return shortcuts(city, false) - degree[city] + contractedNeighbours[city];
+        }
+
+        //removes a city from the remaining graph, keeping its edges as upward edges and adding any shortcuts it needs
+        private void contract(int city){
+            for(int i = 0; i < degree[city]; i++){
+                addUpward(city, adjCity[city][i], adjWeight[city][i], adjMiddle[city][i]);
+            }
+            shortcuts(city, true);
+            for(int i = 0; i < degree[city]; i++){
+                int neighbour = adjCity[city][i];
+                disconnect(neighbour, city);
+                contractedNeighbours[neighbour]++;
+            }
+        }
+
+        //counts, and optionally adds, the shortcuts needed to keep distances between the city's neighbours intact without it
+        private int shortcuts(int city, boolean add){
+            int count = 0;
+            int d = degree[city];
+            int[] cities = Arrays.copyOf(adjCity[city], d);
+            double[] weights = Arrays.copyOf(adjWeight[city], d);
+            double longest = 0;
+            for(int i = 0; i < d; i++){
+                longest = Math.max(longest, weights[i]);
+            }
+
+            for(int i = 0; i < d; i++){
+                witnessSearch(cities[i], city, weights[i] + longest, add ? WITNESS_SETTLE_LIMIT : ESTIMATE_SETTLE_LIMIT);
+                for(int j = i + 1; j < d; j++){
+                    double via = weights[i] + weights[j];
+                    if(witnessSeen[cities[j]] == witnessGeneration && witnessDist[cities[j]] <= via) continue;
+                    count++;
+                    if(add){
+                        connect(cities[i], cities[j], via, city);
+                        connect(cities[j], cities[i], via, city);
+                    }
+                }
+            }
+            return count;
+        }
+
+        //bounded Dijkstra from source that avoids the city being contracted
+        private void witnessSearch(int source, int avoid, double limit, int settleLimit){
+            witnessGeneration++;
+            witnessHeap.clear();
+            witnessSeen[source] = witnessGeneration;
+            witnessDist[source] = 0;
+            witnessHeap.insert(source, 0);
+            int settled = 0;
+            while(!witnessHeap.isEmpty() && settled < settleLimit){
+                int current = witnessHeap.removeMin();
+                double base = witnessDist[current];
+                if(base > limit) break;
+                settled++;
+                for(int i = 0; i < degree[current]; i++){
+                    int next = adjCity[current][i];
+                    if(next == avoid) continue;
+                    double distance = base + adjWeight[current][i];
+                    if(witnessSeen[next] != witnessGeneration || distance < witnessDist[next]){
+                        witnessSeen[next] = witnessGeneration;
+                        witnessDist[next] = distance;
+                        witnessHeap.insertOrDecrease(next, distance);
+                    }
+                }
+            }
+        }
+
+        //adds an edge from a to b, or shortens the existing one
+        private void connect(int a, int b, double weight, int middle){
+            for(int i = 0; i < degree[a]; i++){
+                if(adjCity[a][i] == b){
+                    if(weight < adjWeight[a][i]){
+                        adjWeight[a][i] = weight;
+                        adjMiddle[a][i] = middle;
+                    }
+                    return;
+                }
+            }
+            if(degree[a] == adjCity[a].length){
+                int size = degree[a] * 2;
+                adjCity[a] = Arrays.copyOf(adjCity[a], size);
+                adjWeight[a] = Arrays.copyOf(adjWeight[a], size);
+                adjMiddle[a] = Arrays.copyOf(adjMiddle[a], size);
+            }
+            adjCity[a][degree[a]] = b;
+            adjWeight[a][degree[a]] = weight;
+            adjMiddle[a][degree[a]] = middle;
+            degree[a]++;
+        }
+
+        //removes the edge from a to b
+        private void disconnect(int a, int b){
+            for(int i = 0; i < degree[a]; i++){
+                if(adjCity[a][i] == b){
+                    int last = --degree[a];
+                    adjCity[a][i] = adjCity[a][last];
+                    adjWeight[a][i] = adjWeight[a][last];
+                    adjMiddle[a][i] = adjMiddle[a][last];
+                    return;
+                }
+            }
+        }
+
+        private void addUpward(int from, int to, double weight, int middle){
+            if(upSource.size == upWeight.length) upWeight = Arrays.copyOf(upWeight, upWeight.length * 2);
+            upWeight[upSource.size] = weight;
+            upSource.add(from);
+            upTarget.add(to);
+            upMiddle.add(middle);
+        }
+
+        //packs the upward edges into CSR arrays grouped by their lower city
+        private ContractionHierarchy finish(){
+            int m = upSource.size;
+            int[] offsets = new int[n + 1];
+            for(int i = 0; i < m; i++){
+                offsets[upSource.items[i] + 1]++;
+            }
+            for(int c = 0; c < n; c++){
+                offsets[c + 1] += offsets[c];
+            }
+            int[] fill = Arrays.copyOf(offsets, n);
+            int[] targets = new int[m];
+            double[] weights = new double[m];
+            int[] middles = new int[m];
+            for(int i = 0; i < m; i++){
+                int slot = fill[upSource.items[i]]++;
+                targets[slot] = upTarget.items[i];
+                weights[slot] = upWeight[i];
+                middles[slot] = upMiddle.items[i];
+            }
+            return new ContractionHierarchy(net, rank, offsets, targets, weights, middles);
+        }
+    }
+}
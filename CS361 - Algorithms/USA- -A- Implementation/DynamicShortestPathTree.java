@@ -0,0 +1,290 @@
+import java.util.ArrayList;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+
+/**
+  A single-source shortest-path tree that is repaired in place when roads change, instead of being recomputed from scratch.
+  It follows the Ramalingam-Reps approach for two-way roads with non-negative lengths:
+
+    - A new road, or a shorter one, can only help. If it improves either end, those ends are queued and Dijkstra runs outward
+      from them, touching only cities whose distance actually drops.
+    - Removing or lengthening a road can only hurt, and only if it is a tree edge. The cities hanging below it in the tree lose
+      their distances, each picks its best neighbour outside that subtree as a starting estimate, and Dijkstra settles the
+      subtree again. The rest of the tree is untouched.
+
+  The tree keeps its own adjacency lists, so it has to be told about every change. Trees handed out by
+  Graph.shortestPathTree are kept up to date by the graph automatically.
+*/
+final class DynamicShortestPathTree {
+
+    private final ArrayList<String> names;
+    private final HashMap<String, Integer> ids;
+    private final int source;
+
+    private int[][] adjCity;
+    private double[][] adjWeight;
+    private int[] degree;
+
+    private double[] dist;
+    private int[] parent;       //predecessor in the tree, or -1 for the source and unreachable cities
+    private int[] mark;         //stamps cities in the subtree being repaired
+    private int markGeneration;
+    private IndexedHeap heap;
+
+    /**
+      Builds the tree from a frozen network.
+      @param net The network to start from.
+      @param source The id of the tree's root.
+    */
+    public DynamicShortestPathTree(RoadNetwork net, int source){
+        int n = net.countCities();
+        this.source = source;
+        names = new ArrayList<String>(n);
+        ids = new HashMap<String, Integer>(n * 2);
+        adjCity = new int[n][];
+        adjWeight = new double[n][];
+        degree = new int[n];
+        for(int c = 0; c < n; c++){
+            names.add(net.name(c));
+            ids.put(net.name(c), c);
+            int size = Math.max(2, net.edgeEnd(c) - net.edgeStart(c));
+            adjCity[c] = new int[size];
+            adjWeight[c] = new double[size];
+            for(int e = net.edgeStart(c); e < net.edgeEnd(c); e++){
+                adjCity[c][degree[c]] = net.target(e);
+                adjWeight[c][degree[c]] = net.weight(e);
+                degree[c]++;
+            }
+        }
+
+        dist = new double[n];
+        parent = new int[n];
+        mark = new int[n];
+        heap = new IndexedHeap(IndexedHeap.DEFAULT_ARITY, n);
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        Arrays.fill(parent, -1);
+        dist[source] = 0;
+        heap.insert(source, 0);
+        propagate();
+    }
+
+    /**
+      Returns the name of the tree's root.
+      @return The source city's name.
+    */
+    public String source(){
+        return names.get(source);
+    }
+
+    /**
+      Returns the shortest distance from the source to a city.
+      @param name The city's name.
+      @return The distance in Kilometers, or -1 if the city is unreachable or unknown.
+    */
+    public double distance(String name){
+        Integer id = ids.get(name);
+        if(id == null || dist[id] == Double.POSITIVE_INFINITY) return -1;
+        return dist[id];
+    }
+
+    /**
+      Returns the shortest path from the source to a city, in the same form as Graph.findPath.
+      @param goal The name of the destination city.
+      @return A pair of the path's cities from the source to goal and its length. Returns null if goal is unknown,
+      and a pair of null and -1 if it is unreachable.
+    */
+    public SimpleEntry<ArrayList<String>,Double> findPath(String goal){
+        Integer id = ids.get(goal);
+        if(id == null) return null;
+        if(dist[id] == Double.POSITIVE_INFINITY) return new SimpleEntry<ArrayList<String>,Double>(null,-1.0);
+        ArrayList<String> path = new ArrayList<String>();
+        for(int c = id; c != -1; c = parent[c]){
+            path.add(names.get(c));
+        }
+        Collections.reverse(path);
+        return new SimpleEntry<ArrayList<String>,Double>(path, dist[id]);
+    }
+
+    /**
+      Adds a road or changes its length, repairing the tree.
+      @param name1 The first city of the road.
+      @param name2 The second city of the road.
+      @param weight The road's new length.
+    */
+    public void setEdge(String name1, String name2, double weight){
+        Integer a = ids.get(name1), b = ids.get(name2);
+        if(a == null || b == null || a.intValue() == b.intValue()) return;
+        double old = weight(a, b);
+        connect(a, b, weight);
+        connect(b, a, weight);
+        if(weight < old) decreased(a, b, weight);
+        else if(weight > old) increased(a, b);
+    }
+
+    /**
+      Removes a road, repairing the tree.
+      @param name1 The first city of the road.
+      @param name2 The second city of the road.
+    */
+    public void deleteEdge(String name1, String name2){
+        Integer a = ids.get(name1), b = ids.get(name2);
+        if(a == null || b == null || !disconnect(a, b)) return;
+        disconnect(b, a);
+        increased(a, b);
+    }
+
+    /**
+      Adds a city with no roads. If the city already exists, every road to or from it is removed instead, the same rule
+      Graph.addCity follows, so the tree and the graph's frozen network still have the same two-way roads (see RoadNetwork).
+      @param name The city's name.
+    */
+    public void addCity(String name){
+        Integer existing = ids.get(name);
+        if(existing != null){
+            isolate(existing);
+            return;
+        }
+        int id = names.size();
+        names.add(name);
+        ids.put(name, id);
+        int n = id + 1;
+        adjCity = Arrays.copyOf(adjCity, n);
+        adjWeight = Arrays.copyOf(adjWeight, n);
+        adjCity[id] = new int[2];
+        adjWeight[id] = new double[2];
+        degree = Arrays.copyOf(degree, n);
+        dist = Arrays.copyOf(dist, n);
+        dist[id] = Double.POSITIVE_INFINITY;
+        parent = Arrays.copyOf(parent, n);
+        parent[id] = -1;
+        mark = Arrays.copyOf(mark, n);
+        heap.ensureCapacity(n);
+    }
+
+    /**
+      Removes every road to or from a city, repairing the tree, as Graph.deleteCity does. The city stays known but unreachable,
+      so re-adding it later is the same as adding it fresh.
+      @param name The city's name.
+    */
+    public void deleteCity(String name){
+        Integer id = ids.get(name);
+        if(id != null) isolate(id);
+    }
+
+    //drops every road touching a city, in both directions
+    private void isolate(int city){
+        while(degree[city] > 0){
+            int other = adjCity[city][degree[city] - 1];
+            disconnect(city, other);
+            disconnect(other, city);
+            increased(city, other);
+        }
+    }
+
+    //a road got shorter or appeared: improve whichever end it helps and let Dijkstra carry the change outward
+    private void decreased(int a, int b, double weight){
+        relax(a, b, weight);
+        relax(b, a, weight);
+        propagate();
+    }
+
+    //a road got longer or disappeared: if it was a tree edge, rebuild the subtree that hung below it
+    private void increased(int a, int b){
+        int root;
+        if(parent[b] == a) root = b;
+        else if(parent[a] == b) root = a;
+        else return; //not a tree edge, so no shortest path used it
+
+        //gather the subtree below the broken edge; affected doubles as the DFS stack, since every city pushed is affected
+        markGeneration++;
+        int[] affected = new int[16];
+        int count = 0;
+        affected[count++] = root;
+        mark[root] = markGeneration;
+        for(int done = 0; done < count; done++){
+            int c = affected[done];
+            for(int i = 0; i < degree[c]; i++){
+                int next = adjCity[c][i];
+                if(parent[next] == c && mark[next] != markGeneration){
+                    mark[next] = markGeneration;
+                    if(count == affected.length) affected = Arrays.copyOf(affected, count * 2);
+                    affected[count++] = next;
+                }
+            }
+        }
+
+        //forget their distances, then seed each with its best neighbour outside the subtree
+        for(int i = 0; i < count; i++){
+            dist[affected[i]] = Double.POSITIVE_INFINITY;
+            parent[affected[i]] = -1;
+        }
+        for(int i = 0; i < count; i++){
+            int c = affected[i];
+            for(int j = 0; j < degree[c]; j++){
+                int other = adjCity[c][j];
+                if(mark[other] != markGeneration) relax(other, c, adjWeight[c][j]);
+            }
+        }
+        propagate();
+    }
+
+    //offers the path through from as a way to reach to
+    private void relax(int from, int to, double weight){
+        double distance = dist[from] + weight;
+        if(distance < dist[to]){
+            dist[to] = distance;
+            parent[to] = from;
+            heap.insertOrDecrease(to, distance);
+        }
+    }
+
+    //runs Dijkstra from whatever is queued until no distance can drop any further
+    private void propagate(){
+        while(!heap.isEmpty()){
+            int current = heap.removeMin();
+            for(int i = 0; i < degree[current]; i++){
+                relax(current, adjCity[current][i], adjWeight[current][i]);
+            }
+        }
+    }
+
+    //the length of the road from a to b, or positive infinity if there is none
+    private double weight(int a, int b){
+        for(int i = 0; i < degree[a]; i++){
+            if(adjCity[a][i] == b) return adjWeight[a][i];
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    //adds or overwrites the road from a to b
+    private void connect(int a, int b, double weight){
+        for(int i = 0; i < degree[a]; i++){
+            if(adjCity[a][i] == b){
+                adjWeight[a][i] = weight;
+                return;
+            }
+        }
+        if(degree[a] == adjCity[a].length){
+            adjCity[a] = Arrays.copyOf(adjCity[a], degree[a] * 2);
+            adjWeight[a] = Arrays.copyOf(adjWeight[a], degree[a] * 2);
+        }
+        adjCity[a][degree[a]] = b;
+        adjWeight[a][degree[a]] = weight;
+        degree[a]++;
+    }
+
+    //removes the road from a to b, returning false if there was none
+    private boolean disconnect(int a, int b){
+        for(int i = 0; i < degree[a]; i++){
+            if(adjCity[a][i] == b){
+                int last = --degree[a];
+                adjCity[a][i] = adjCity[a][last];
+                adjWeight[a][i] = adjWeight[a][last];
+                return true;
+            }
+        }
+        return false;
+    }
+}
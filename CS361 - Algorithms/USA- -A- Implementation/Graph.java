@@ -1,9 +1,12 @@
 import java.util.HashMap;
 import java.util.ArrayList;
 import java.util.AbstractMap.SimpleEntry;
-import java.util.Collections;
-import java.util.PriorityQueue;
 import java.util.Map;
+import java.util.List;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.io.File;
 
 
 /**
@@ -17,11 +20,37 @@ class Graph {
     private HashMap<String, City> map;
     private int numCities;
     private int numEdges;
+    private RoadNetwork network; //cached frozen form, dropped whenever the graph changes
+    private int landmarkCount; //0 when findPath uses the great-circle heuristic
+    private boolean useChord; //with no landmarks, estimate by chord instead of great circle
+    private ChordHeuristic chord;
+    private File landmarkFile;
+    private Landmarks landmarks;
+    private ContractionHierarchy hierarchy;
+    private SpatialIndex spatial;
+    private Components components; //null after a deletion, until the next query rebuilds it
+    private long version; //bumped on every change, so cached answers can tell they are stale
+    private RouteCache cache;
+    private SearchStats stats; //null unless searches are being measured
+    private ArrayList<DynamicShortestPathTree> trees = new ArrayList<DynamicShortestPathTree>(); //repaired on every change
 
     public Graph(){
         map = new HashMap<String, City>();
         numEdges = 0;
         numCities = 0;
+        components = new Components();
+    }
+
+    /**
+      Creates a graph from an already-frozen road network, such as one opened from a binary graph file. The editable form of
+      the graph is only built if the graph is changed or its adjacency lists are asked for.
+      @param net The road network to start from.
+    */
+    public Graph(RoadNetwork net){
+        map = null;
+        network = net;
+        numCities = net.countCities();
+        numEdges = net.countEdges() / 2;
     }
 
     /**
@@ -46,6 +75,7 @@ class Graph {
       @return True if the city is present, false otherwise.
     */
     public boolean contains(String name){
+        if(map == null) return network.id(name) != -1;
         return map.containsKey(name);
     }
 
@@ -62,91 +92,456 @@ class Graph {
 
 
     public SimpleEntry<ArrayList<String>,Double> findPath(String first, String goal){
-      City start = map.get(first);
-      City finish = map.get(goal);
-
-      if((start == null) || (finish == null)) return null;
-
-      //directly adjacent case
-      if(areAdjacent(first,goal)){
-        ArrayList<String> path = new ArrayList<String>();
-        path.add(first);
-        path.add(goal);
-        double d = start.adjacencies.get(goal);
-        return new SimpleEntry<ArrayList<String>,Double>(path,d);
+      return findPath(first, goal, false);
+    }
+
+    /**
+      Finds a path between two cities, choosing between the usual forward A* and a bidirectional A* that searches from both
+      ends at once. Both modes find a shortest path and answer in the same form as findPath(first, goal).
+      @param first The name of the first city, the starting point.
+      @param goal The name of the second city, the destination point.
+      @param bidirectional True to search from both ends, false for the forward-only search.
+      @return The same as findPath(first, goal).
+    */
+    public SimpleEntry<ArrayList<String>,Double> findPath(String first, String goal, boolean bidirectional){
+      RoadNetwork net = freeze();
+      if(cutOff(net, first, goal)) return new SimpleEntry<ArrayList<String>,Double>(null,-1.0);
+      return cachedPath(net, heuristic(net), cache, stats, version, first, goal, bidirectional);
+    }
+
+    /**
+      Finds up to k shortest loopless routes between two cities in one call, with Yen's algorithm.
+      @param first The name of the first city, the starting point.
+      @param goal The name of the second city, the destination point.
+      @param k The most routes to return.
+      @return The routes in the same form as findPath, shortest first. Returns null if one or more of the cities are invalid,
+      and an empty list if no path exists. There are fewer than k routes if the graph has fewer.
+      @throws IllegalArgumentException If k is not positive.
+    */
+    public List<SimpleEntry<ArrayList<String>,Double>> alternativeRoutes(String first, String goal, int k){
+      if(k <= 0) throw new IllegalArgumentException("k must be positive");
+      RoadNetwork net = freeze();
+      int start = net.id(first);
+      int finish = net.id(goal);
+      if((start == -1) || (finish == -1)) return null;
+
+      ArrayList<SimpleEntry<ArrayList<String>,Double>> routes = new ArrayList<SimpleEntry<ArrayList<String>,Double>>();
+      if(cutOff(net, first, goal)) return routes;
+      for(AlternativeRoutes.Route r : AlternativeRoutes.find(net, start, finish, k)){
+        routes.add(route(net, r.cities(), r.distance()));
+      }
+      return routes;
+    }
+
+    /**
+      States whether any path joins two cities, without searching. Answers from a connected-component index that is kept up
+      to date as cities and roads are added, and rebuilt on the next call after one is removed.
+      @param name1 The first city.
+      @param name2 The second city.
+      @return True if both cities are in the graph and some path joins them.
+    */
+    public boolean connected(String name1, String name2){
+      freeze();
+      return components().connected(name1, name2);
+    }
+
+    //true if both cities exist but lie in different components, so a search could only come back empty
+    private boolean cutOff(RoadNetwork net, String first, String goal){
+      return net.id(first) != -1 && net.id(goal) != -1 && !components().connected(first, goal);
+    }
+
+    //returns the component index, rebuilding it from the frozen network if a deletion invalidated it
+    private Components components(){
+      if(components == null) components = Components.of(freeze());
+      return components;
+    }
+
+    /**
+      Turns on a cache of one-way findPath answers, keyed by city pair. Bidirectional searches bypass it. Cached answers are dropped
+      as soon as the graph changes.
+      @param capacity The most routes to remember before evicting the least recently used.
+    */
+    public void useRouteCache(int capacity){
+      cache = new RouteCache(capacity);
+    }
+
+    /**
+      Returns the route cache, whose hit, miss and eviction counts can be read while the graph is in use.
+      @return The route cache, or null if caching is off.
+    */
+    public RouteCache routeCache(){
+      return cache;
+    }
+
+    /**
+      Returns a shortest-path tree rooted at a city. The graph repairs the tree in place on every addCity, addEdge, deleteCity
+      and deleteEdge, instead of it having to be recomputed, until it is released.
+      @param source The name of the tree's root.
+      @return The tree, or null if the city is not in the graph.
+    */
+    public DynamicShortestPathTree shortestPathTree(String source){
+      RoadNetwork net = freeze();
+      int id = net.id(source);
+      if(id == -1) return null;
+      DynamicShortestPathTree tree = new DynamicShortestPathTree(net, id);
+      trees.add(tree);
+      return tree;
+    }
+
+    /**
+      Stops keeping a shortest-path tree up to date.
+      @param tree A tree returned by shortestPathTree.
+    */
+    public void releaseShortestPathTree(DynamicShortestPathTree tree){
+      trees.remove(tree);
+    }
+
+    /**
+      Starts measuring every path search findPath and findPaths run: how many cities each expanded, how many roads it relaxed
+      and skipped, how large its open list grew and how long it took. Answers served from the route cache or the component
+      index are not searches and are not counted.
+      @param stats The stats to report into, or null to stop measuring.
+    */
+    public void useSearchStats(SearchStats stats){
+      this.stats = stats;
+    }
+
+    /**
+      Returns the stats searches are reporting into.
+      @return The attached stats, or null if searches are not being measured.
+    */
+    public SearchStats searchStats(){
+      return stats;
+    }
+
+    /**
+      Returns the version of the graph, which goes up every time a city or edge is added or removed.
+      @return The graph's version.
+    */
+    public long version(){
+      return version;
+    }
+
+    /**
+      Switches findPath to the landmark (ALT) heuristic. Landmarks are read from the given file when it matches the graph, and
+      otherwise computed and saved there. They are rebuilt the same way the next time a path is requested after the graph changes.
+      @param k The number of landmarks to use.
+      @param file The file landmarks are cached in.
+    */
+    public void useLandmarks(int k, String file){
+      landmarkCount = k;
+      useChord = false;
+      landmarkFile = new File(file);
+      landmarks = null;
+      heuristic(freeze());
+    }
+
+    /**
+      Returns a Contraction Hierarchy of the graph, whose findPath answers the same queries as this graph's with far less
+      searching. The hierarchy is built on first use and kept until the graph changes.
+      @return The contraction hierarchy for the graph as it is now.
+    */
+    public ContractionHierarchy contractionHierarchy(){
+      RoadNetwork net = freeze();
+      ContractionHierarchy ch = hierarchy;
+      if(ch == null || ch.network() != net){
+        ch = ContractionHierarchy.build(net);
+        hierarchy = ch;
+      }
+      return ch;
+    }
+
+    /**
+      Finds the city closest to a point, using a spatial index that is built on first use and kept until the graph changes.
+      @param latitude The point's latitude in degrees.
+      @param longitude The point's longitude in degrees.
+      @return The name of the nearest city, or null if the graph has no cities.
+    */
+    public String nearestCity(double latitude, double longitude){
+      SpatialIndex index = spatialIndex();
+      int id = index.nearest(latitude, longitude);
+      return (id == -1) ? null : index.network().name(id);
+    }
+
+    /**
+      Finds every city within a distance of a point, as the crow flies.
+      @param latitude The point's latitude in degrees.
+      @param longitude The point's longitude in degrees.
+      @param radiusKm The search radius in Kilometers.
+      @return The names of the cities within the radius, in no particular order.
+    */
+    public ArrayList<String> citiesWithin(double latitude, double longitude, double radiusKm){
+      SpatialIndex index = spatialIndex();
+      int[] ids = index.within(latitude, longitude, radiusKm);
+      ArrayList<String> names = new ArrayList<String>(ids.length);
+      for(int id : ids){
+        names.add(index.network().name(id));
+      }
+      return names;
+    }
+
+    //returns the spatial index of the current network, building it if the graph changed since it was last used
+    private SpatialIndex spatialIndex(){
+      RoadNetwork net = freeze();
+      SpatialIndex index = spatial;
+      if(index == null || index.network() != net){
+        index = new SpatialIndex(net);
+        spatial = index;
+      }
+      return index;
+    }
+
+    /**
+      Switches findPath to the chord heuristic, which estimates the same distances as the great-circle one from precomputed
+      coordinates, without any trigonometry per estimate.
+    */
+    public void useChordHeuristic(){
+      landmarkCount = 0;
+      landmarkFile = null;
+      landmarks = null;
+      useChord = true;
+    }
+
+    /**
+      Switches findPath back to the great-circle heuristic.
+    */
+    public void useGreatCircle(){
+      useChord = false;
+      landmarkCount = 0;
+      landmarkFile = null;
+      landmarks = null;
+    }
+
+    /**
+      Finds paths for a batch of city pairs at once, spreading the searches over the common ForkJoin pool. Every search shares the
+      same frozen road network, so the graph must not be changed while the batch runs.
+      @param pairs The (first, goal) city pairs to route.
+      @return The result of findPath for each pair, in the same order as the pairs.
+    */
+    public List<SimpleEntry<ArrayList<String>,Double>> findPaths(List<SimpleEntry<String,String>> pairs){
+      return findPaths(pairs, ForkJoinPool.commonPool());
+    }
+
+    /**
+      Finds paths for a batch of city pairs at once, spreading the searches over the given ForkJoin pool. Every search shares the
+      same frozen road network, so the graph must not be changed while the batch runs.
+      @param pairs The (first, goal) city pairs to route.
+      @param pool The pool to run the searches in.
+      @return The result of findPath for each pair, in the same order as the pairs.
+    */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public List<SimpleEntry<ArrayList<String>,Double>> findPaths(List<SimpleEntry<String,String>> pairs, ForkJoinPool pool){
+      SimpleEntry<String,String>[] queries = pairs.toArray(new SimpleEntry[pairs.size()]);
+      SimpleEntry<ArrayList<String>,Double>[] results = new SimpleEntry[queries.length];
+      RoadNetwork net = freeze();
+      //pairs with no path between them are answered here, so the workers only search the rest
+      for(int i = 0; i < queries.length; i++){
+        if(cutOff(net, queries[i].getKey(), queries[i].getValue())) results[i] = new SimpleEntry<ArrayList<String>,Double>(null,-1.0);
+      }
+      pool.invoke(new BatchTask(net, heuristic(net), cache, stats, version, queries, results, 0, queries.length));
+      return Arrays.asList(results);
+    }
+
+    /**
+      Measures the road distance from every source city to every target city, running one Dijkstra search per source that
+      stops once all the targets are reached.
+      @param sources The names of the cities to measure from.
+      @param targets The names of the cities to measure to.
+      @param parallel True to spread the sources over the common ForkJoin pool.
+      @return A flat row-major matrix, where the distance from sources[i] to targets[j] is at [i*targets.size() + j],
+      or -1 if there is no path.
+      @throws IllegalArgumentException If any of the cities is not in the graph.
+    */
+    public double[] distanceMatrix(List<String> sources, List<String> targets, boolean parallel){
+      RoadNetwork net = freeze();
+      int[] from = ids(net, sources);
+      int[] to = ids(net, targets);
+      double[] matrix = new double[from.length * to.length];
+      MatrixTask task = new MatrixTask(net, from, to, matrix, 0, from.length);
+      if(parallel) ForkJoinPool.commonPool().invoke(task);
+      else task.compute();
+      return matrix;
+    }
+
+    /**
+      Finds every city within a road distance of an origin, with one Dijkstra search that stops at the budget.
+      @param origin The name of the city to measure from.
+      @param budgetKm The longest road distance to include, in Kilometers.
+      @return The cities reached and their distances, nearest first.
+      @throws IllegalArgumentException If the origin is not in the graph.
+    */
+    public Isochrone reachableWithin(String origin, double budgetKm){
+      RoadNetwork net = freeze();
+      int source = ids(net, Arrays.asList(origin))[0];
+      return PathSearch.forThread(net).reachableWithin(net, source, budgetKm);
+    }
+
+    /**
+      Finds every city within a road distance of each of several origins.
+      @param origins The names of the cities to measure from.
+      @param budgetKm The longest road distance to include, in Kilometers.
+      @param parallel True to spread the origins over the common ForkJoin pool.
+      @return One result per origin, in the same order as the origins.
+      @throws IllegalArgumentException If any of the origins is not in the graph.
+    */
+    public List<Isochrone> reachableWithin(List<String> origins, double budgetKm, boolean parallel){
+      RoadNetwork net = freeze();
+      int[] sources = ids(net, origins);
+      Isochrone[] results = new Isochrone[sources.length];
+      IsochroneTask task = new IsochroneTask(net, sources, budgetKm, results, 0, sources.length);
+      if(parallel) ForkJoinPool.commonPool().invoke(task);
+      else task.compute();
+      return Arrays.asList(results);
+    }
+
+    //looks up the ids of a list of cities, rejecting any that are not in the network
+    private static int[] ids(RoadNetwork net, List<String> names){
+      int[] ids = new int[names.size()];
+      for(int i = 0; i < ids.length; i++){
+        ids[i] = net.id(names.get(i));
+        if(ids[i] == -1) throw new IllegalArgumentException("'" + names.get(i) + "' is not a valid city.");
+      }
+      return ids;
+    }
+
+    //answers from the cache when it can, and otherwise searches and remembers the answer. The cache only holds one-way answers,
+    //so a bidirectional search always runs, and comparing the two kinds of search on one graph compares the searches themselves
+    static SimpleEntry<ArrayList<String>,Double> cachedPath(RoadNetwork net, Heuristic heuristic, RouteCache cache, SearchStats stats,
+                                                                     long version, String first, String goal, boolean bidirectional){
+      if(cache == null || bidirectional) return findPath(net, heuristic, first, goal, bidirectional, stats);
+      SimpleEntry<ArrayList<String>,Double> route = cache.get(first, goal, version);
+      if(route != null){
+        if(stats != null) stats.recordCacheHit();
+        return route;
+      }
+      route = findPath(net, heuristic, first, goal, bidirectional, stats);
+      if(route != null) cache.put(first, goal, version, route);
+      return route;
+    }
+
+    //runs one path search against an already-frozen network, translating names to ids and back at the edges
+    static SimpleEntry<ArrayList<String>,Double> findPath(RoadNetwork net, Heuristic heuristic, String first, String goal, boolean bidirectional,
+                                                          SearchStats stats){
+      int start = net.id(first);
+      int finish = net.id(goal);
+
+      if((start == -1) || (finish == -1)) return null;
+
+      PathSearch search = PathSearch.forThread(net);
+      search.setStats(stats);
+      double distance;
+      try{
+        distance = bidirectional ? search.searchBidirectional(net, start, finish, heuristic) : search.search(net, start, finish, heuristic);
+      }
+      finally{
+        search.setStats(null);
       }
 
-      HashMap<String,String> closedList = new HashMap<String, String>();
-      HashMap<String,Double> distanceTo = new HashMap<String, Double>(); //previous best distance to this city
-      PriorityQueue<City> openList = new PriorityQueue<City>();
-
-      City current = start;
-      //add start onto nodes to view
-      openList.add(current);
-      closedList.put(first,null);
-      current.reachedFrom = null;
-      distanceTo.put(first, 0.0);
-
-      while(openList.size() != 0){
-        //remove best option
-        current = openList.poll();
-
-        if(distanceTo.containsKey(current.name)){
-          if(distanceTo.get(current.name) < current.distanceToReachThis){
-            continue;
-          }
+      //path not found
+      if(distance < 0) return new SimpleEntry<ArrayList<String>,Double>(null,-1.0);
+
+      int[] ids = new int[search.pathLength()];
+      search.copyPath(ids);
+      return route(net, ids, distance);
+    }
+
+    //translates a path of city ids back into names
+    static SimpleEntry<ArrayList<String>,Double> route(RoadNetwork net, int[] ids, double distance){
+      ArrayList<String> path = new ArrayList<String>(ids.length);
+      for(int id : ids){
+        path.add(net.name(id));
+      }
+      return new SimpleEntry<ArrayList<String>,Double>(path, distance);
+    }
+
+    /**
+      Returns an immutable compressed-sparse-row snapshot of the graph. The snapshot is cached until the graph is next changed.
+      Every road in it is two-way (see RoadNetwork).
+      @return The current road network.
+    */
+    public RoadNetwork freeze(){
+        RoadNetwork net = network;
+        if(net != null) return net;
+
+        int n = cities().size();
+        String[] names = new String[n];
+        double[] lat = new double[n];
+        double[] lng = new double[n];
+        HashMap<String,Integer> ids = new HashMap<String,Integer>(n * 2);
+        int i = 0;
+        for(City c : cities().values()){
+            names[i] = c.name;
+            lat[i] = c.lat;
+            lng[i] = c.lng;
+            ids.put(c.name, i);
+            i++;
         }
 
-        //we've found the end, assemble list and total-distance, return
-        if(current.equals(finish)){
-          //assemble path and total
-          closedList.put(current.name, current.reachedFrom);
-          ArrayList<String> path = new ArrayList<String>();
-          String addition = current.name;
-
-          //go backwards through the hashmap of pairs
-          while(!(addition.equals(first))) {
-            path.add(addition);
-            addition = closedList.get(addition);
-          }
-          path.add(first);
-          Collections.reverse(path);
-          return new SimpleEntry<ArrayList<String>,Double>(path, current.distanceToReachThis);
+        int[] offsets = new int[n + 1];
+        for(i = 0; i < n; i++){
+            offsets[i + 1] = offsets[i] + cities().get(names[i]).adjacencies.size();
         }
-        //otherwise, pull the adjacencies from this city
-        for(Map.Entry<String,Double> e : current.adjacencies.entrySet()){
-          //pull out relevant information on city
-          String name = e.getKey();
-          double distanceToCity = e.getValue();
-          City possibility = (City)map.get(name).clone();
-
-          //if this city is not in the closed list
-          if(closedList.get(name) == null){
-
-            //adjust score and add to PriorityQueue
-            possibility.distanceToReachThis = current.distanceToReachThis + distanceToCity;
-            possibility.score = possibility.distanceToReachThis + possibility.crowFliesDistance(finish);
-
-            if(distanceTo.containsKey(possibility.name)){
-                if(distanceTo.get(possibility.name) < possibility.distanceToReachThis){
-                continue;
-              }
+
+        int[] targets = new int[offsets[n]];
+        double[] weights = new double[offsets[n]];
+        for(i = 0; i < n; i++){
+            int e = offsets[i];
+            for(Map.Entry<String,Double> adj : cities().get(names[i]).adjacencies.entrySet()){
+                targets[e] = ids.get(adj.getKey());
+                weights[e] = adj.getValue();
+                e++;
             }
+        }
+
+        net = new RoadNetwork(names, offsets, targets, weights, lat, lng);
+        network = net;
+        return net;
+    }
 
-            openList.add(possibility);
-            distanceTo.put(possibility.name, possibility.distanceToReachThis);
-            possibility.reachedFrom = current.name;
-          }
 
+    //returns the heuristic findPath should use on the given network, building landmarks for it if they are switched on
+    Heuristic heuristic(RoadNetwork net){
+        if(landmarkCount == 0 && useChord){
+            ChordHeuristic h = chord;
+            if(h == null || h.network() != net){
+                h = new ChordHeuristic(net);
+                chord = h;
+            }
+            return h;
         }
-        //after we've done all we want with this city, add it to the closed list and update previous
-          closedList.put(current.name, current.reachedFrom);
+        if(landmarkCount == 0) return net;
+        if(landmarks == null) landmarks = Landmarks.loadOrCompute(net, landmarkCount, landmarkFile);
+        return landmarks;
+    }
 
-      }
-      //path not found
-      return new SimpleEntry<ArrayList<String>,Double>(null,-1.0);
+    //returns the editable city map, first rebuilding it from the frozen network if the graph was created from one
+    private HashMap<String, City> cities(){
+        if(map != null) return map;
+        RoadNetwork net = network;
+        HashMap<String, City> cities = new HashMap<String, City>(net.countCities() * 2);
+        for(int i = 0; i < net.countCities(); i++){
+            String name = net.name(i);
+            cities.put(name, new City(name, Math.toDegrees(net.latitude(i)), Math.toDegrees(net.longitude(i))));
+        }
+        for(int i = 0; i < net.countCities(); i++){
+            City c = cities.get(net.name(i));
+            for(int e = net.edgeStart(i); e < net.edgeEnd(i); e++){
+                c.addEdge(net.name(net.target(e)), net.weight(e));
+            }
+        }
+        map = cities;
+        return map;
     }
 
+    //drops everything derived from the current shape of the graph
+    private void changed(){
+        version++;
+        network = null;
+        landmarks = null;
+        hierarchy = null;
+        spatial = null;
+        chord = null;
+    }
 
 /**
   Connects two cities by an edge of a given distance. Can also overwrite an existing connection (DOES NOT ALLOW PARALLEL EDGES)
@@ -155,15 +550,19 @@ class Graph {
   @param distance The length of the edge connecting the two cities. In this context, the distance is interpretted as Kilometers
 */
     public void addEdge(String name1, String name2, double distance){
-        City c1 = map.get(name1);
-        City c2 = map.get(name2);
+        City c1 = cities().get(name1);
+        City c2 = cities().get(name2);
 
         c1.addEdge(name2, distance);
         if(c2.addEdge(name1, distance)) numEdges++; //increment number of edges if we actually added a new edge
+        changed();
+        if(components != null) components.addEdge(name1, name2);
+        for(DynamicShortestPathTree tree : trees) tree.setEdge(name1, name2, distance);
     }
 
     /**
-    Creates a city and adds it to the graph.
+    Creates a city and adds it to the graph. A city that already exists is replaced by one with no roads, and the roads
+    leading to the old one are removed as well.
     @param name The city's name.
     @param latitude The city's latitude in degrees
     @param longitude The cities longitude in degrees
@@ -171,8 +570,14 @@ class Graph {
 
     public void addCity(String name, double latitude, double longitude){
         City c = new City(name, latitude, longitude);
-        map.put(name, c);
+        City old = cities().put(name, c);
+        boolean replaced = old != null;
+        if(replaced) dropRoads(old); //re-adding a city drops its roads, both ways
         numCities++;
+        changed();
+        if(replaced) components = null;
+        else if(components != null) components.addCity(name);
+        for(DynamicShortestPathTree tree : trees) tree.addCity(name);
         return;
     }
 
@@ -182,22 +587,40 @@ class Graph {
       @param name2 The second city in the connection
     */
     public void deleteEdge(String name1, String name2){
-        City c1 = map.get(name1);
-        City c2 = map.get(name2);
+        City c1 = cities().get(name1);
+        City c2 = cities().get(name2);
 
         c1.remEdge(name2);
         if(c2.remEdge(name1)) numEdges--;
+        changed();
+        components = null;
+        for(DynamicShortestPathTree tree : trees) tree.deleteEdge(name1, name2);
         return;
     }
 /**
-  Removes a city from the graph.
+  Removes a city from the graph, along with every road to or from it.
   @param name The city's name.
 */
     public void deleteCity(String name){
-        if(map.remove(name) != null) numCities--;
+        City old = cities().remove(name);
+        if(old != null){
+            dropRoads(old);
+            numCities--;
+        }
+        changed();
+        components = null;
+        for(DynamicShortestPathTree tree : trees) tree.deleteCity(name);
         return;
     }
 
+    //removes the roads leading back to a city that was just removed or replaced, so every road left in the graph is two-way
+    private void dropRoads(City old){
+        for(String other : old.adjacencies.keySet()){
+            City c = cities().get(other);
+            if(c != null && c.adjacencies.remove(old.name) != null) numEdges--;
+        }
+    }
+
 /**
   Returns whether two cities are directly adjacent
   @param name1 The first city in the connection
@@ -205,7 +628,7 @@ class Graph {
   @return True if the cities are adjacent, false otherwise
 */
     public boolean areAdjacent(String name1, String name2){
-        City c1 = map.get(name1);
+        City c1 = cities().get(name1);
         return c1.adjacencies.containsKey(name2);
     };
 
@@ -216,38 +639,150 @@ class Graph {
     */
 
     public ArrayList<String> getAdjacencyList(String name){
-        City c = map.get(name);
+        City c = cities().get(name);
         ArrayList<String> list = (ArrayList<String>)c.adjacencies.keySet();
         return list; //TODO: might not be enough?
     }   // list of adj
 
+    /**
+      Splits a batch of path queries in half until the pieces are small enough to run directly, writing each answer into the
+      slot matching its query.
+    */
+    private static class BatchTask extends RecursiveAction{
+        private static final long serialVersionUID = 1L;
+        private static final int THRESHOLD = 16;
+
+        private final RoadNetwork net;
+        private final Heuristic heuristic;
+        private final RouteCache cache;
+        private final SearchStats stats;
+        private final long version;
+        private final SimpleEntry<String,String>[] queries;
+        private final SimpleEntry<ArrayList<String>,Double>[] results;
+        private final int from, to;
+
+        BatchTask(RoadNetwork net, Heuristic heuristic, RouteCache cache, SearchStats stats, long version,
+                  SimpleEntry<String,String>[] queries, SimpleEntry<ArrayList<String>,Double>[] results, int from, int to){
+            this.net = net;
+            this.heuristic = heuristic;
+            this.cache = cache;
+            this.stats = stats;
+            this.version = version;
+            this.queries = queries;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute(){
+            if(to - from <= THRESHOLD){
+                for(int i = from; i < to; i++){
+                    if(results[i] != null) continue;
+                    results[i] = cachedPath(net, heuristic, cache, stats, version, queries[i].getKey(), queries[i].getValue(), false);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new BatchTask(net, heuristic, cache, stats, version, queries, results, from, mid),
+                      new BatchTask(net, heuristic, cache, stats, version, queries, results, mid, to));
+        }
+    }
+
+    /**
+      Splits the rows of a distance matrix in half until the pieces are small enough to run directly, filling one row per source.
+    */
+    private static class MatrixTask extends RecursiveAction{
+        private static final long serialVersionUID = 1L;
+        private static final int THRESHOLD = 4;
+
+        private final RoadNetwork net;
+        private final int[] sources, targets;
+        private final double[] matrix;
+        private final int from, to;
+
+        MatrixTask(RoadNetwork net, int[] sources, int[] targets, double[] matrix, int from, int to){
+            this.net = net;
+            this.sources = sources;
+            this.targets = targets;
+            this.matrix = matrix;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute(){
+            if(to - from <= THRESHOLD){
+                PathSearch search = PathSearch.forThread(net);
+                for(int i = from; i < to; i++){
+                    search.distancesFrom(net, sources[i], targets, matrix, i * targets.length);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new MatrixTask(net, sources, targets, matrix, from, mid), new MatrixTask(net, sources, targets, matrix, mid, to));
+        }
+    }
+
+    /**
+      Splits a list of isochrone origins in half until the pieces are small enough to run directly, one search per origin.
+    */
+    private static class IsochroneTask extends RecursiveAction{
+        private static final long serialVersionUID = 1L;
+        private static final int THRESHOLD = 4;
+
+        private final RoadNetwork net;
+        private final int[] sources;
+        private final double budget;
+        private final Isochrone[] results;
+        private final int from, to;
+
+        IsochroneTask(RoadNetwork net, int[] sources, double budget, Isochrone[] results, int from, int to){
+            this.net = net;
+            this.sources = sources;
+            this.budget = budget;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute(){
+            if(to - from <= THRESHOLD){
+                PathSearch search = PathSearch.forThread(net);
+                for(int i = from; i < to; i++){
+                    results[i] = search.reachableWithin(net, sources[i], budget);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new IsochroneTask(net, sources, budget, results, from, mid), new IsochroneTask(net, sources, budget, results, mid, to));
+        }
+    }
+
     /**
       A City contained in the graph. Contains its latitude and longitude in radians, as well as the cities name and the
       cities adjacent to it in the form of a hashmap pairing adjacent cities with doubles representing the distance between
       this city and the edge-partner.
     */
 
-    private class City implements Comparable<City>, Cloneable{
+    private class City implements Comparable<City>{
         public String name;
         public double lat, lng;
         private double actualLat, actualLng;
         public HashMap<String, Double> adjacencies;
 
         public double score;
-        public double distanceToReachThis;
-        public String reachedFrom;
 
         //Creates a city with longitude and latituge. Coordinates are converted to radians from degrees.
         public City(String name, double lat, double lng){
             this.name = name;
             this.actualLat = lat;
             this.actualLng = lng;
-            reachedFrom = "";
 
             this.lat = lat * Math.PI/180;
             this.lng = lng * Math.PI/180;
             score = 0.0;
-            distanceToReachThis = 0.0;
             adjacencies = new HashMap<String,Double>();
         }
         //returns true if an edge was added, false if it was alterd.
@@ -276,7 +811,8 @@ class Graph {
         //calculates the "crow flies distance" between thic city and another, in Kilometers
         private final double EARTH_RADIUS = 6371;
         public double crowFliesDistance(City other){
-            return Math.acos((Math.sin(this.lat) * Math.sin(other.lat)) + (Math.cos(this.lat) * Math.cos(other.lat) * Math.cos(this.lng - other.lng))) * EARTH_RADIUS;
+            double cos = (Math.sin(this.lat) * Math.sin(other.lat)) + (Math.cos(this.lat) * Math.cos(other.lat) * Math.cos(this.lng - other.lng));
+            return Math.acos(Math.min(1.0, cos)) * EARTH_RADIUS; //clamped, since rounding can push the cosine past 1 and give NaN
         }
 
         //sets the score, to be used in comparisons of cities via the compareTo method (such as in a PriorityQueue)
@@ -292,23 +828,7 @@ class Graph {
         //compares cities by their scores. Notably, cities being equal via compareTo means something VERY DIFFERENT from being equal via equals
         @Override
         public int compareTo(City other){
-            return (int)(this.score - other.score); //larger scores are considered lower priority than smaller scores
-        }
-
-        //copies over a cities name, Coordinates and predecessor
-        @Override
-        protected City clone(){
-
-          City copy = new City(this.name, actualLat, actualLng);
-          copy.score = 0;
-          copy.distanceToReachThis = 0;
-          copy.reachedFrom = this.reachedFrom;
-
-          @SuppressWarnings("unchecked")
-          HashMap<String,Double> list = (HashMap<String,Double>) this.adjacencies.clone();
-          copy.adjacencies = list;
-
-          return copy;
+            return Double.compare(this.score, other.score); //larger scores are considered lower priority than smaller scores
         }
 
         //The string representing a city is just it's name
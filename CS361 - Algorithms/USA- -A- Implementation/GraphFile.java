@@ -0,0 +1,132 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+  Reads and writes road networks in a versioned binary format, so a map only has to be parsed from its .geo text once.
+  All values are little-endian, laid out as:
+
+    header       magic "RNET", version, city count n, edge count m, name table size t, name byte count b, 8 reserved bytes
+    node table   int offsets[n+1], double lat[n], double lng[n]    (radians)
+    edges        int targets[m], double weights[m]
+    string pool  int nameOffsets[n+1], int nameSlots[t], byte names[b]
+
+  Opening a file maps it with a MappedByteBuffer. The numeric sections are bulk-copied into the network's primitive arrays and
+  the string pool is used in place, so no object is created per city. A single mapping is limited to 2GB.
+*/
+final class GraphFile {
+
+    private static final int MAGIC = 0x54454E52; //"RNET" when read as little-endian bytes
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+
+    private GraphFile(){
+    }
+
+    /**
+      Writes a road network to a file, replacing anything already there.
+      @param net The network to write.
+      @param file The file to write.
+      @throws IOException If the file cannot be written or the network is too large for one mapping.
+    */
+    public static void write(RoadNetwork net, File file) throws IOException{
+        int n = net.countCities();
+        int m = net.countEdges();
+        NamePool names = net.names();
+        long size = HEADER_BYTES + 4L*(n + 1) + 16L*n + 12L*m + names.byteSize();
+        if(size > Integer.MAX_VALUE) throw new IOException("Road network is too large for a single graph file");
+
+        try(RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()){
+            raf.setLength(size);
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            out.order(ByteOrder.LITTLE_ENDIAN);
+
+            out.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(m);
+            out.putInt(names.slotCount()).putInt(names.nameBytes()).putLong(0);
+
+            for(int i = 0; i < n; i++){
+                out.putInt(net.edgeStart(i));
+            }
+            out.putInt(m);
+            for(int i = 0; i < n; i++){
+                out.putDouble(net.latitude(i));
+            }
+            for(int i = 0; i < n; i++){
+                out.putDouble(net.longitude(i));
+            }
+            for(int e = 0; e < m; e++){
+                out.putInt(net.target(e));
+            }
+            for(int e = 0; e < m; e++){
+                out.putDouble(net.weight(e));
+            }
+            names.writeTo(out);
+            out.force();
+        }
+    }
+
+    /**
+      Opens a road network written by write.
+      @param file The file to open.
+      @return The road network stored in the file.
+      @throws IOException If the file cannot be read, is not a graph file, or was written by an unknown version.
+    */
+    public static RoadNetwork open(File file) throws IOException{
+        try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)){
+            long length = channel.size();
+            if(length < HEADER_BYTES) throw new IOException(file + " is not a graph file");
+            if(length > Integer.MAX_VALUE) throw new IOException(file + " is too large to map");
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            in.order(ByteOrder.LITTLE_ENDIAN);
+
+            if(in.getInt() != MAGIC) throw new IOException(file + " is not a graph file");
+            int version = in.getInt();
+            if(version != VERSION) throw new IOException(file + " has unsupported graph file version " + version);
+            int n = in.getInt();
+            int m = in.getInt();
+            int slots = in.getInt();
+            int nameBytes = in.getInt();
+            in.getLong();
+            long expected = HEADER_BYTES + 4L*(n + 1) + 16L*n + 12L*m + 4L*(n + 1) + 4L*slots + nameBytes;
+            if(n < 0 || m < 0 || expected != length) throw new IOException(file + " is truncated or corrupt");
+
+            int[] offsets = new int[n + 1];
+            double[] lat = new double[n];
+            double[] lng = new double[n];
+            int[] targets = new int[m];
+            double[] weights = new double[m];
+
+            in.asIntBuffer().get(offsets);
+            in.position(in.position() + 4*(n + 1));
+            in.asDoubleBuffer().get(lat);
+            in.position(in.position() + 8*n);
+            in.asDoubleBuffer().get(lng);
+            in.position(in.position() + 8*n);
+            in.asIntBuffer().get(targets);
+            in.position(in.position() + 4*m);
+            in.asDoubleBuffer().get(weights);
+            in.position(in.position() + 8*m);
+
+            IntBuffer nameOffsets = section(in, 4*(n + 1)).asIntBuffer();
+            IntBuffer nameSlots = section(in, 4*slots).asIntBuffer();
+            ByteBuffer names = section(in, nameBytes);
+
+            return new RoadNetwork(new NamePool(names, nameOffsets, nameSlots), offsets, targets, weights, lat, lng);
+        }
+    }
+
+    //returns a little-endian view of the next length bytes and moves past them
+    private static ByteBuffer section(ByteBuffer in, int length){
+        ByteBuffer view = in.slice();
+        view.limit(length);
+        view.order(ByteOrder.LITTLE_ENDIAN);
+        in.position(in.position() + length);
+        return view;
+    }
+}
@@ -0,0 +1,15 @@
+/**
+  A lower bound on the road distance between two cities of a RoadNetwork, used to guide A*. Estimates must never exceed the
+  true distance, and should be consistent (no estimate drops by more than the length of the edge being crossed) so a city
+  never has to be expanded twice.
+*/
+interface Heuristic {
+
+    /**
+      Estimates the distance from a city to the goal.
+      @param city The id of the city being scored.
+      @param goal The id of the destination city.
+      @return A lower bound on the road distance in Kilometers, or positive infinity if the goal cannot be reached.
+    */
+    double estimate(int city, int goal);
+}
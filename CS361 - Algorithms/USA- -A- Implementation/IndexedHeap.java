@@ -0,0 +1,201 @@
+import java.util.Arrays;
+
+/**
+  An indexed d-ary min-heap of int ids with double keys. Every id in [0, capacity) can be in the heap at most once, and its
+  position is tracked so its key can be lowered in place, which keeps the heap no larger than the number of ids. Keys are
+  compared exactly as doubles.
+*/
+final class IndexedHeap {
+
+    static final int DEFAULT_ARITY = 4; //the arity every search in the project builds its heaps with
+
+    private final int arity;
+    private double[] keys;     //keys by heap position
+    private int[] items;       //ids by heap position
+    private int[] position;    //heap position of each id, or -1 if the id is not in the heap
+    private int size;
+
+    /**
+      Creates an empty heap.
+      @param arity The number of children per heap node. Must be at least 2.
+      @param capacity The number of distinct ids the heap can hold, numbered 0 to capacity-1.
+    */
+    public IndexedHeap(int arity, int capacity){
+        if(arity < 2) throw new IllegalArgumentException("Heap arity must be at least 2");
+        this.arity = arity;
+        keys = new double[capacity];
+        items = new int[capacity];
+        position = new int[capacity];
+        Arrays.fill(position, -1);
+        size = 0;
+    }
+
+    /**
+      Grows the heap so it can hold ids up to capacity-1. Ids already in the heap are kept.
+      @param capacity The number of distinct ids the heap must be able to hold.
+    */
+    public void ensureCapacity(int capacity){
+        if(position.length >= capacity) return;
+        int old = position.length;
+        keys = Arrays.copyOf(keys, capacity);
+        items = Arrays.copyOf(items, capacity);
+        position = Arrays.copyOf(position, capacity);
+        Arrays.fill(position, old, capacity, -1);
+    }
+
+    /**
+      Returns the number of ids in the heap.
+      @return The number of ids in the heap.
+    */
+    public int size(){
+        return size;
+    }
+
+    /**
+      States whether the heap is empty.
+      @return True if there are no ids in the heap.
+    */
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    /**
+      States whether an id is in the heap.
+      @param id The id queried.
+      @return True if the id is in the heap.
+    */
+    public boolean contains(int id){
+        return position[id] != -1;
+    }
+
+    /**
+      Returns the key of an id in the heap.
+      @param id An id currently in the heap.
+      @return The id's key.
+    */
+    public double keyOf(int id){
+        return keys[position[id]];
+    }
+
+    /**
+      Adds an id that is not already in the heap.
+      @param id The id to add.
+      @param key The id's key.
+    */
+    public void insert(int id, double key){
+        if(position[id] != -1) throw new IllegalArgumentException("Id " + id + " is already in the heap");
+        int i = size++;
+        items[i] = id;
+        keys[i] = key;
+        position[id] = i;
+        siftUp(i);
+    }
+
+    /**
+      Lowers the key of an id already in the heap. Does nothing if the new key is not lower.
+      @param id The id to update.
+      @param key The id's new key.
+    */
+    public void decreaseKey(int id, double key){
+        int i = position[id];
+        if(key >= keys[i]) return;
+        keys[i] = key;
+        siftUp(i);
+    }
+
+    /**
+      Adds an id, or lowers its key if it is already in the heap.
+      @param id The id to add or update.
+      @param key The id's key.
+    */
+    public void insertOrDecrease(int id, double key){
+        if(position[id] == -1) insert(id, key);
+        else decreaseKey(id, key);
+    }
+
+    /**
+      Returns the smallest key in the heap without removing it.
+      @return The smallest key.
+    */
+    public double minKey(){
+        return keys[0];
+    }
+
+    /**
+      Returns the id with the smallest key without removing it.
+      @return The id with the smallest key.
+    */
+    public int peek(){
+        return items[0];
+    }
+
+    /**
+      Removes the id with the smallest key.
+      @return The removed id.
+    */
+    public int removeMin(){
+        int top = items[0];
+        position[top] = -1;
+        size--;
+        if(size > 0){
+            items[0] = items[size];
+            keys[0] = keys[size];
+            position[items[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    /**
+      Empties the heap. Only touches the ids still in it, so it costs nothing after a search that drained the heap.
+    */
+    public void clear(){
+        for(int i = 0; i < size; i++){
+            position[items[i]] = -1;
+        }
+        size = 0;
+    }
+
+    //moves the entry at i up until its parent's key is no larger
+    private void siftUp(int i){
+        int id = items[i];
+        double key = keys[i];
+        while(i > 0){
+            int parent = (i - 1) / arity;
+            if(keys[parent] <= key) break;
+            move(parent, i);
+            i = parent;
+        }
+        items[i] = id;
+        keys[i] = key;
+        position[id] = i;
+    }
+
+    //moves the entry at i down until none of its children have a smaller key
+    private void siftDown(int i){
+        int id = items[i];
+        double key = keys[i];
+        while(true){
+            int first = arity * i + 1;
+            if(first >= size) break;
+            int last = Math.min(first + arity, size);
+            int best = first;
+            for(int c = first + 1; c < last; c++){
+                if(keys[c] < keys[best]) best = c;
+            }
+            if(keys[best] >= key) break;
+            move(best, i);
+            i = best;
+        }
+        items[i] = id;
+        keys[i] = key;
+        position[id] = i;
+    }
+
+    //copies the entry at heap position from into heap position to
+    private void move(int from, int to){
+        items[to] = items[from];
+        keys[to] = keys[from];
+        position[items[to]] = to;
+    }
+}
@@ -0,0 +1,77 @@
+/**
+  The cities reachable from an origin within a road-distance budget, as two parallel primitive arrays ordered nearest first:
+  city ids and their road distances from the origin. The origin itself is always the first entry.
+*/
+final class Isochrone {
+
+    private final RoadNetwork net;
+    private final int origin;
+    private final double budget;
+    private final int[] cities;
+    private final double[] distances;
+
+    Isochrone(RoadNetwork net, int origin, double budget, int[] cities, double[] distances){
+        this.net = net;
+        this.origin = origin;
+        this.budget = budget;
+        this.cities = cities;
+        this.distances = distances;
+    }
+
+    /**
+      Returns the network the ids refer to.
+      @return The road network that was searched.
+    */
+    public RoadNetwork network(){
+        return net;
+    }
+
+    /**
+      Returns the name of the city the distances are measured from.
+      @return The origin's name.
+    */
+    public String origin(){
+        return net.name(origin);
+    }
+
+    /**
+      Returns the distance budget of the query.
+      @return The budget in Kilometers.
+    */
+    public double budget(){
+        return budget;
+    }
+
+    /**
+      Returns the number of cities reached.
+      @return The number of cities within the budget, including the origin.
+    */
+    public int size(){
+        return cities.length;
+    }
+
+    /**
+      Returns the ids of the cities reached, nearest first. The array belongs to this result and is not copied.
+      @return The city ids.
+    */
+    public int[] cities(){
+        return cities;
+    }
+
+    /**
+      Returns the road distances of the cities reached, matching cities() entry for entry. The array is not copied.
+      @return The distances in Kilometers.
+    */
+    public double[] distances(){
+        return distances;
+    }
+
+    /**
+      Returns the name of one of the cities reached.
+      @param i The position of the city, from 0 to size() - 1.
+      @return The city's name.
+    */
+    public String name(int i){
+        return net.name(cities[i]);
+    }
+}
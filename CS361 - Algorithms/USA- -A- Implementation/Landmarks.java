@@ -0,0 +1,204 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+  Landmark (ALT) heuristic for A*. A handful of landmark cities are chosen ahead of time and the road distance from every city
+  to each landmark is stored in one flat array. By the triangle inequality, |d(L,goal) - d(L,city)| never exceeds the road
+  distance from city to goal, and the largest of these over all landmarks is usually much tighter than the great-circle bound.
+
+  Landmarks can be saved to a file and loaded again, so the preprocessing only has to be done once per network.
+*/
+final class Landmarks implements Heuristic {
+
+    private static final int MAGIC = 0x414C5401; //"ALT" followed by the format version
+    private final int cities;
+    private final int count;
+    private final int[] landmarks;
+    private final double[] distances; //distances[city*count + i] is the road distance between city and landmark i
+    private final long fingerprint;
+
+    private Landmarks(int cities, int[] landmarks, double[] distances, long fingerprint){
+        this.cities = cities;
+        this.count = landmarks.length;
+        this.landmarks = landmarks;
+        this.distances = distances;
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+      Chooses landmarks by farthest-point selection and measures every city's distance to each. Each new landmark is the city
+      farthest from all landmarks chosen so far, so cities in components with no landmark yet are always picked first.
+      @param net The network to preprocess.
+      @param k The number of landmarks to choose. Clamped to the number of cities.
+      @return The computed landmarks.
+      @throws IllegalArgumentException If k is negative.
+    */
+    public static Landmarks compute(RoadNetwork net, int k){
+        if(k < 0) throw new IllegalArgumentException("The number of landmarks cannot be negative");
+        int n = net.countCities();
+        k = Math.min(k, n);
+        int[] chosen = new int[k];
+        double[] distances = new double[n * k];
+        double[] nearest = new double[n]; //distance from each city to its closest landmark so far
+        Arrays.fill(nearest, Double.NEGATIVE_INFINITY);
+
+        double[] dist = new double[n];
+        IndexedHeap heap = new IndexedHeap(IndexedHeap.DEFAULT_ARITY, n);
+        int next = 0;
+        for(int i = 0; i < k; i++){
+            chosen[i] = next;
+            dijkstra(net, next, dist, heap);
+
+            double farthest = -1;
+            for(int c = 0; c < n; c++){
+                distances[c*k + i] = dist[c];
+                if(i == 0 || dist[c] < nearest[c]) nearest[c] = dist[c];
+                if(nearest[c] > farthest){
+                    farthest = nearest[c];
+                    next = c;
+                }
+            }
+        }
+        return new Landmarks(n, chosen, distances, fingerprint(net));
+    }
+
+    /**
+      Loads landmarks from a file if it was written for the same network, and otherwise computes them and writes the file.
+      @param net The network the landmarks are for.
+      @param k The number of landmarks to compute if the file cannot be used.
+      @param file The landmark file.
+      @return Landmarks matching the network.
+    */
+    public static Landmarks loadOrCompute(RoadNetwork net, int k, File file){
+        try{
+            Landmarks stored = load(net, file);
+            if(stored != null && stored.count == Math.min(k, net.countCities())) return stored;
+        }
+        catch(IOException e){
+            //unreadable file, fall through and rebuild it
+        }
+        Landmarks computed = compute(net, k);
+        try{
+            computed.save(file);
+        }
+        catch(IOException e){
+            System.err.println("Unable to save landmarks to " + file + ": " + e.getMessage());
+        }
+        return computed;
+    }
+
+    /**
+      Reads landmarks from a file.
+      @param net The network the landmarks are for.
+      @param file The landmark file.
+      @return The landmarks, or null if the file does not exist or was written for a different network.
+      @throws IOException If the file cannot be read.
+    */
+    public static Landmarks load(RoadNetwork net, File file) throws IOException{
+        if(!file.exists()) return null;
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))){
+            if(in.readInt() != MAGIC) return null;
+            int n = in.readInt();
+            int k = in.readInt();
+            long print = in.readLong();
+            if(n != net.countCities() || print != fingerprint(net)) return null;
+
+            int[] chosen = new int[k];
+            for(int i = 0; i < k; i++){
+                chosen[i] = in.readInt();
+            }
+            double[] distances = new double[n * k];
+            for(int i = 0; i < distances.length; i++){
+                distances[i] = in.readDouble();
+            }
+            return new Landmarks(n, chosen, distances, print);
+        }
+    }
+
+    /**
+      Writes the landmarks to a file, tagged with the network's fingerprint so stale files are detected on load.
+      @param file The file to write.
+      @throws IOException If the file cannot be written.
+    */
+    public void save(File file) throws IOException{
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))){
+            out.writeInt(MAGIC);
+            out.writeInt(cities);
+            out.writeInt(count);
+            out.writeLong(fingerprint);
+            for(int landmark : landmarks){
+                out.writeInt(landmark);
+            }
+            for(double d : distances){
+                out.writeDouble(d);
+            }
+        }
+    }
+
+    /**
+      Returns the number of landmarks.
+      @return The number of landmarks.
+    */
+    public int count(){
+        return count;
+    }
+
+    @Override
+    public double estimate(int city, int goal){
+        int c = city * count;
+        int g = goal * count;
+        double best = 0;
+        for(int i = 0; i < count; i++){
+            double toCity = distances[c + i];
+            double toGoal = distances[g + i];
+            if(toCity == Double.POSITIVE_INFINITY || toGoal == Double.POSITIVE_INFINITY){
+                if(toCity != toGoal) return Double.POSITIVE_INFINITY; //exactly one of them can reach this landmark
+                continue;
+            }
+            double bound = Math.abs(toGoal - toCity);
+            if(bound > best) best = bound;
+        }
+        return best;
+    }
+
+    //plain Dijkstra from one city, leaving unreachable cities at positive infinity
+    private static void dijkstra(RoadNetwork net, int source, double[] dist, IndexedHeap heap){
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        heap.clear();
+        dist[source] = 0;
+        heap.insert(source, 0);
+        while(!heap.isEmpty()){
+            int current = heap.removeMin();
+            double base = dist[current];
+            for(int e = net.edgeStart(current); e < net.edgeEnd(current); e++){
+                int next = net.target(e);
+                double distance = base + net.weight(e);
+                if(distance < dist[next]){
+                    dist[next] = distance;
+                    heap.insertOrDecrease(next, distance);
+                }
+            }
+        }
+    }
+
+    //hashes the names and roads of a network, so a landmark file is only reused for the network it was built from
+    private static long fingerprint(RoadNetwork net){
+        NamePool names = net.names();
+        long h = net.countCities();
+        for(int c = 0; c < net.countCities(); c++){
+            h = h*31 + names.hash(c);
+            for(int e = net.edgeStart(c); e < net.edgeEnd(c); e++){
+                h = h*31 + net.target(e);
+                h = h*31 + Double.doubleToLongBits(net.weight(e));
+            }
+        }
+        return h;
+    }
+}
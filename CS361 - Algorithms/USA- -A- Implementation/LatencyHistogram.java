@@ -0,0 +1,111 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+  A fixed-size histogram of latencies in microseconds that many threads can record into without locking. Values below 64 get
+  a bucket each. Above that, every power of two is split into 32 buckets, so any value is reported to within about 3%. The
+  64 exact buckets and 58 powers of two at 32 buckets each come to 1,920 buckets (15KB of counts), which cover every value a
+  long can hold.
+*/
+final class LatencyHistogram {
+
+    private static final int LINEAR = 64;          //values below this are counted exactly
+    private static final int SUB_BUCKETS = 32;     //buckets per power of two above that
+    private static final int SUB_BITS = 5;
+    private static final int LINEAR_BITS = 6;
+    private static final int BUCKETS = LINEAR + (64 - LINEAR_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+      Records one latency.
+      @param nanos The latency in nanoseconds, such as the difference of two System.nanoTime() readings.
+    */
+    public void record(long nanos){
+        long micros = Math.max(0, nanos / 1000);
+        counts.incrementAndGet(bucket(micros));
+        count.incrementAndGet();
+        total.addAndGet(micros);
+        max.accumulateAndGet(micros, Math::max);
+    }
+
+    /**
+      Returns the number of latencies recorded.
+      @return The count.
+    */
+    public long count(){
+        return count.get();
+    }
+
+    /**
+      Returns the mean latency.
+      @return The mean in microseconds, or 0 if nothing was recorded.
+    */
+    public double mean(){
+        long n = count.get();
+        return (n == 0) ? 0 : (double)total.get() / n;
+    }
+
+    /**
+      Returns the largest latency recorded.
+      @return The maximum in microseconds.
+    */
+    public long max(){
+        return max.get();
+    }
+
+    /**
+      Returns the latency that a given fraction of the recorded latencies do not exceed.
+      @param fraction The fraction, from 0 to 1, such as 0.99 for the 99th percentile.
+      @return The latency in microseconds, accurate to the bucket width, or 0 if nothing was recorded.
+    */
+    public long percentile(double fraction){
+        long n = count.get();
+        if(n == 0) return 0;
+        long rank = Math.max(1, (long)Math.ceil(fraction * n));
+        long seen = 0;
+        for(int b = 0; b < BUCKETS; b++){
+            seen += counts.get(b);
+            if(seen >= rank) return Math.min(upperBound(b), max.get());
+        }
+        return max.get();
+    }
+
+    /**
+      Clears every recorded latency.
+    */
+    public void reset(){
+        for(int b = 0; b < BUCKETS; b++){
+            counts.set(b, 0);
+        }
+        count.set(0);
+        total.set(0);
+        max.set(0);
+    }
+
+    @Override
+    public String toString(){
+        return String.format("n=%d mean=%.1fus p50=%dus p90=%dus p99=%dus p99.9=%dus max=%dus",
+            count(), mean(), percentile(0.5), percentile(0.9), percentile(0.99), percentile(0.999), max());
+    }
+
+    //the bucket a value in microseconds falls in
+    private static int bucket(long micros){
+        if(micros < LINEAR) return (int)micros;
+        int exponent = 63 - Long.numberOfLeadingZeros(micros); //at least LINEAR_BITS
+        int sub = (int)(micros >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR + (exponent - LINEAR_BITS) * SUB_BUCKETS + sub;
+    }
+
+    //the largest value that falls in a bucket
+    private static long upperBound(int bucket){
+        if(bucket < LINEAR) return bucket;
+        int exponent = (bucket - LINEAR) / SUB_BUCKETS + LINEAR_BITS;
+        long sub = (bucket - LINEAR) % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BITS);
+        return (1L << exponent) + (sub + 1) * width - 1;
+    }
+}
@@ -0,0 +1,188 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+  The name/id dictionary of a RoadNetwork. Names are stored back to back as UTF-8 in one byte buffer, with an int offset per
+  city and an open-addressing hash table of ids for lookups by name. Everything lives in three flat buffers, so a pool can be
+  built in memory or sit directly on a memory-mapped graph file without creating an object per city. Strings are only made
+  when a name is asked for.
+*/
+final class NamePool {
+
+    private final ByteBuffer bytes;   //UTF-8 names, back to back
+    private final IntBuffer offsets;  //name i lies between offsets[i] and offsets[i+1]
+    private final IntBuffer slots;    //hash table of id+1 per slot, 0 for an empty slot; its size is a power of two
+
+    /**
+      Wraps already-built buffers, such as sections of a mapped graph file.
+      @param bytes The UTF-8 bytes of every name.
+      @param offsets The start of each name in bytes, with one extra trailing entry.
+      @param slots The hash table, holding id+1 or 0 in each slot. Its size must be a power of two.
+    */
+    NamePool(ByteBuffer bytes, IntBuffer offsets, IntBuffer slots){
+        if(Integer.bitCount(slots.capacity()) != 1) throw new IllegalArgumentException("Name table size must be a power of two");
+        this.bytes = bytes;
+        this.offsets = offsets;
+        this.slots = slots;
+    }
+
+    /**
+      Builds a pool in memory.
+      @param names The name of each city, indexed by id. Names must be distinct.
+      @return The pool.
+    */
+    public static NamePool build(String[] names){
+        byte[][] encoded = new byte[names.length][];
+        int total = 0;
+        for(int i = 0; i < names.length; i++){
+            encoded[i] = names[i].getBytes(StandardCharsets.UTF_8);
+            total += encoded[i].length;
+        }
+
+        ByteBuffer bytes = ByteBuffer.allocate(total);
+        IntBuffer offsets = IntBuffer.allocate(names.length + 1);
+        for(int i = 0; i < names.length; i++){
+            offsets.put(i, bytes.position());
+            bytes.put(encoded[i]);
+        }
+        offsets.put(names.length, total);
+        bytes.flip();
+
+        IntBuffer slots = IntBuffer.allocate(tableSize(names.length));
+        int mask = slots.capacity() - 1;
+        for(int i = 0; i < names.length; i++){
+            int slot = hash(encoded[i], 0, encoded[i].length) & mask;
+            while(slots.get(slot) != 0){
+                slot = (slot + 1) & mask;
+            }
+            slots.put(slot, i + 1);
+        }
+        return new NamePool(bytes, offsets, slots);
+    }
+
+    /**
+      Returns the hash table size used for a given number of names, which keeps the table at most half full.
+      @param count The number of names.
+      @return A power of two at least twice the number of names.
+    */
+    static int tableSize(int count){
+        return Integer.highestOneBit(Math.max(count, 1) * 2 - 1) << 1;
+    }
+
+    /**
+      Returns the number of names in the pool.
+      @return The number of names.
+    */
+    public int count(){
+        return offsets.capacity() - 1;
+    }
+
+    /**
+      Returns the name with the given id.
+      @param id The city's id.
+      @return The city's name.
+    */
+    public String name(int id){
+        int start = offsets.get(id);
+        byte[] raw = new byte[offsets.get(id + 1) - start];
+        for(int i = 0; i < raw.length; i++){
+            raw[i] = bytes.get(start + i);
+        }
+        return new String(raw, StandardCharsets.UTF_8);
+    }
+
+    /**
+      Looks up the id of a name.
+      @param name The name to find.
+      @return Its id, or -1 if the name is not in the pool.
+    */
+    public int id(String name){
+        byte[] key = name.getBytes(StandardCharsets.UTF_8);
+        int mask = slots.capacity() - 1;
+        int slot = hash(key, 0, key.length) & mask;
+        int entry;
+        while((entry = slots.get(slot)) != 0){
+            if(matches(entry - 1, key)) return entry - 1;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+      Hashes a name straight from the pool's bytes, without making a String.
+      @param id The city's id.
+      @return The FNV-1a hash of the name's UTF-8 bytes, the same hash the lookup table uses.
+    */
+    int hash(int id){
+        int h = 0x811C9DC5;
+        for(int i = offsets.get(id); i < offsets.get(id + 1); i++){
+            h ^= bytes.get(i) & 0xFF;
+            h *= 0x01000193;
+        }
+        return h;
+    }
+
+    /**
+      Writes the pool's three sections into a little-endian buffer in the order GraphFile reads them: the name offsets, then
+      the hash table slots, then the UTF-8 name bytes.
+      @param out The buffer to write into.
+    */
+    void writeTo(ByteBuffer out){
+        out.order(ByteOrder.LITTLE_ENDIAN);
+        for(int i = 0; i < offsets.capacity(); i++){
+            out.putInt(offsets.get(i));
+        }
+        for(int i = 0; i < slots.capacity(); i++){
+            out.putInt(slots.get(i));
+        }
+        for(int i = 0; i < bytes.limit(); i++){
+            out.put(bytes.get(i));
+        }
+    }
+
+    /**
+      Returns the number of bytes writeTo produces.
+      @return The size of the pool's sections in bytes.
+    */
+    long byteSize(){
+        return 4L * offsets.capacity() + 4L * slots.capacity() + bytes.limit();
+    }
+
+    /**
+      Returns the size of the pool's hash table.
+      @return The number of slots.
+    */
+    int slotCount(){
+        return slots.capacity();
+    }
+
+    /**
+      Returns the total length of the pool's names in UTF-8.
+      @return The number of name bytes.
+    */
+    int nameBytes(){
+        return bytes.limit();
+    }
+
+    //compares a stored name with the bytes of a query
+    private boolean matches(int id, byte[] key){
+        int start = offsets.get(id);
+        if(offsets.get(id + 1) - start != key.length) return false;
+        for(int i = 0; i < key.length; i++){
+            if(bytes.get(start + i) != key[i]) return false;
+        }
+        return true;
+    }
+
+    //FNV-1a hash of a run of bytes, which gives the same answer in memory and on disk
+    private static int hash(byte[] data, int from, int to){
+        int h = 0x811C9DC5;
+        for(int i = from; i < to; i++){
+            h ^= data[i] & 0xFF;
+            h *= 0x01000193;
+        }
+        return h;
+    }
+}
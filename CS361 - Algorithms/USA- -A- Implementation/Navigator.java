@@ -1,50 +1,56 @@
 import java.util.Scanner;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.PrintWriter;
 import java.util.NoSuchElementException;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.AbstractMap.SimpleEntry;
 /**
 The Navigator parses the US-capitals.geo file for all 50 state capitals, then can be queried for connections between various capitals by land.
+Run with "-batch pairsFile outputFile" to route every hyphen-separated pair in a file instead of reading queries from the keyboard.
+Put "-landmarks k" first to guide searches with k landmarks, which are cached in US-capitals.landmarks between runs.
+The parsed map is saved as a binary graph file, US-capitals.graph, which later runs open instead while it is newer than the .geo file.
 
 @author David S Smith
 @version 12/7/2017
 */
 
 class Navigator{
-    public static void main(String[] args){
 
-        Graph graph = new Graph();
-        Scanner parser = null;
-        try{
-            parser = new Scanner(new File("US-capitals.geo"));
-        }
-        catch(FileNotFoundException f){
-            System.err.println("Unable to find US-capitals.geo - Please make sure the file is accessible to the project");
-            System.exit(1);
-        }
-        parser.useDelimiter("\\n|\\t|\\r");
+    private static final int BATCH_SIZE = 10000; //number of pairs read from a batch file before they are routed together
+    private static final String LANDMARK_FILE = "US-capitals.landmarks";
 
-        //read through until hitting a blank line, then start next looop
-        graphPopulateVertices: while(parser.hasNext()){
-            String name = parser.next();
-            if(name.length() == 0) break graphPopulateVertices;
+    public static void main(String[] args){
 
-            double latitude = parser.nextDouble();
-            double longitude = parser.nextDouble();
-            graph.addCity(name, latitude, longitude);
+        Graph graph = openGraph("US-capitals.geo", "US-capitals.graph");
 
+        int arg = 0;
+        if(args.length > arg + 1 && args[arg].equals("-landmarks")){
+            graph.useLandmarks(Integer.parseInt(args[arg + 1]), LANDMARK_FILE);
+            arg += 2;
         }
 
-        graphPopulateEdges: while(parser.hasNext()){
-            String first = parser.next();
-            String second = parser.next();
-            double distance = parser.nextDouble();
-            graph.addEdge(first, second, distance);
+        if(args.length > arg && args[arg].equals("-batch")){
+            if(args.length != arg + 3){
+                System.err.println("Usage: java Navigator [-landmarks <k>] -batch <pairs file> <output file>");
+                System.exit(1);
+            }
+            try{
+                runBatch(graph, new File(args[arg + 1]), new File(args[arg + 2]));
+            }
+            catch(IOException e){
+                System.err.println("Unable to process batch: " + e.getMessage());
+                System.exit(1);
+            }
+            System.exit(0);
         }
 
-        parser.close();
-
         boolean inputReading = true;
 
         Scanner scan = new Scanner(System.in);
@@ -84,34 +90,145 @@ System.out.println("Please enter a pair of cities separated by a hyphen");
             }
 
             SimpleEntry<ArrayList<String>,Double> response = graph.findPath(first, second);
+            System.out.println(describe(graph, first, second, response));
+        }
+        System.out.println("Goodbye!");
+        scan.close();
+        System.exit(0);
+    }
 
-            if(response == null){
-                System.out.println("Please enter two valid cities");
-                continue userInput;
+    /**
+      Opens the binary form of a map if it is up to date, and otherwise parses the .geo text and saves the binary form for next time.
+      @param geoFile The .geo text file.
+      @param graphFile The binary graph file kept alongside it.
+      @return The populated graph.
+    */
+    static Graph openGraph(String geoFile, String graphFile){
+        File geo = new File(geoFile);
+        File binary = new File(graphFile);
+        if(binary.exists() && (!geo.exists() || binary.lastModified() >= geo.lastModified())){
+            try{
+                return new Graph(GraphFile.open(binary));
             }
+            catch(IOException e){
+                System.err.println("Unable to open " + graphFile + " (" + e.getMessage() + "), reading " + geoFile + " instead");
+            }
+        }
 
-            ArrayList<String> path = response.getKey();
-            double distance = response.getValue();
+        Graph graph = loadGraph(geoFile);
+        try{
+            GraphFile.write(graph.freeze(), binary);
+        }
+        catch(IOException e){
+            System.err.println("Unable to save " + graphFile + ": " + e.getMessage());
+        }
+        return graph;
+    }
 
-            if(distance < 0){
-                System.out.println("Sorry, there's no path by land from '" + first + "' to '" + second + "'.");
-                continue userInput;
-            }
-            else{
-                //route string construction
-                String route = path.get(0);
-                for(int i = 1; i < path.size(); i++){
-                    route += " - " + path.get(i);
-                }
+    /**
+      Reads a .geo file into a graph: a tab-separated block of cities with their latitude and longitude, a blank line,
+      and then a block of edges with their lengths.
+      @param filename The file to read.
+      @return The populated graph.
+    */
+    static Graph loadGraph(String filename){
+        Graph graph = new Graph();
+        Scanner parser = null;
+        try{
+            parser = new Scanner(new File(filename));
+        }
+        catch(FileNotFoundException f){
+            System.err.println("Unable to find " + filename + " - Please make sure the file is accessible to the project");
+            System.exit(1);
+        }
+        parser.useDelimiter("\\n|\\t|\\r");
 
-                System.out.println("Path found: " + route + " (" + distance + "km)");
-                continue userInput;
+        //read through until hitting a blank line, then start next looop
+        graphPopulateVertices: while(parser.hasNext()){
+            String name = parser.next();
+            if(name.length() == 0) break graphPopulateVertices;
+
+            double latitude = parser.nextDouble();
+            double longitude = parser.nextDouble();
+            graph.addCity(name, latitude, longitude);
+
+        }
+
+        graphPopulateEdges: while(parser.hasNext()){
+            String first = parser.next();
+            String second = parser.next();
+            double distance = parser.nextDouble();
+            graph.addEdge(first, second, distance);
+        }
+
+        parser.close();
+        return graph;
+    }
+
+    /**
+      Routes every hyphen-separated pair in a file and writes one answer line per pair to the output file, in the same order.
+      Pairs are read and routed in chunks, so large files are never held in memory all at once.
+      @param graph The graph to route over.
+      @param input The file of pairs, one per line.
+      @param output The file to write answers to.
+      @throws IOException If either file cannot be read or written.
+    */
+    static void runBatch(Graph graph, File input, File output) throws IOException{
+        try(BufferedReader in = new BufferedReader(new FileReader(input));
+            PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(output)))){
+
+            ArrayList<SimpleEntry<String,String>> pairs = new ArrayList<SimpleEntry<String,String>>(BATCH_SIZE);
+            String line;
+            while((line = in.readLine()) != null){
+                if(line.length() == 0) continue;
+                int hyphen = line.indexOf('-');
+                if(hyphen == -1) pairs.add(new SimpleEntry<String,String>(line, ""));
+                else pairs.add(new SimpleEntry<String,String>(line.substring(0, hyphen), line.substring(hyphen + 1)));
+
+                if(pairs.size() == BATCH_SIZE){
+                    writeBatch(graph, pairs, out);
+                    pairs.clear();
+                }
             }
+            writeBatch(graph, pairs, out);
+        }
+    }
 
+    //routes one chunk of pairs in parallel and prints the answers in input order
+    private static void writeBatch(Graph graph, ArrayList<SimpleEntry<String,String>> pairs, PrintWriter out){
+        if(pairs.isEmpty()) return;
+        List<SimpleEntry<ArrayList<String>,Double>> responses = graph.findPaths(pairs);
+        for(int i = 0; i < pairs.size(); i++){
+            out.println(describe(graph, pairs.get(i).getKey(), pairs.get(i).getValue(), responses.get(i)));
         }
-        System.out.println("Goodbye!");
-        scan.close();
-        System.exit(0);
     }
 
+    /**
+      Turns the answer to a query into the message shown to the user.
+      @param graph The graph that was queried.
+      @param first The first city queried.
+      @param second The second city queried.
+      @param response The result of findPath for the pair.
+      @return The message describing the route, or why there isn't one.
+    */
+    static String describe(Graph graph, String first, String second, SimpleEntry<ArrayList<String>,Double> response){
+        if((first.length() == 0) || (second.length() == 0)) return "Please enter two valid cities";
+        if(!graph.contains(first)) return "'"+ first + "' is not a valid city.";
+        if(!graph.contains(second)) return "'"+ second + "' is not a valid city.";
+        if(response == null) return "Please enter two valid cities";
+
+        ArrayList<String> path = response.getKey();
+        double distance = response.getValue();
+
+        if(distance < 0){
+            return "Sorry, there's no path by land from '" + first + "' to '" + second + "'.";
+        }
+
+        //route string construction
+        String route = path.get(0);
+        for(int i = 1; i < path.size(); i++){
+            route += " - " + path.get(i);
+        }
+        return "Path found: " + route + " (" + distance + "km)";
+    }
 }
@@ -0,0 +1,110 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+  A load generator for NavigatorServer. Several threads each open a connection and send the hyphen-separated pairs from a file,
+  one request at a time, timing every round trip. Prints the client-side latency histogram and the server's own STATS line.
+
+  Usage: java NavigatorClient <pairs file> [threads] [rounds] [port]
+*/
+class NavigatorClient {
+
+    public static void main(String[] args) throws Exception{
+        if(args.length < 1){
+            System.err.println("Usage: java NavigatorClient <pairs file> [threads] [rounds] [port]");
+            System.exit(1);
+        }
+        ArrayList<String> pairs = new ArrayList<String>();
+        try(BufferedReader in = new BufferedReader(new FileReader(args[0]))){
+            String line;
+            while((line = in.readLine()) != null){
+                if(line.length() > 0) pairs.add(line);
+            }
+        }
+        int threads = (args.length > 1) ? Integer.parseInt(args[1]) : 8;
+        int rounds = (args.length > 2) ? Integer.parseInt(args[2]) : 10;
+        int port = (args.length > 3) ? Integer.parseInt(args[3]) : NavigatorServer.DEFAULT_PORT;
+
+        LatencyHistogram latency = new LatencyHistogram();
+        AtomicInteger failures = new AtomicInteger();
+        Thread[] workers = new Thread[threads];
+        long start = System.nanoTime();
+        for(int t = 0; t < threads; t++){
+            final int offset = t;
+            workers[t] = new Thread(() -> {
+                try{
+                    run(port, pairs, offset, rounds, latency);
+                }
+                catch(IOException e){
+                    failures.incrementAndGet();
+                    System.err.println("Connection failed: " + e.getMessage());
+                }
+            });
+            workers[t].start();
+        }
+        for(Thread w : workers){
+            w.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d requests from %d threads in %.2fs (%.0f requests/s), %d failed connections%n",
+            latency.count(), threads, seconds, latency.count() / seconds, failures.get());
+        System.out.println("client " + latency);
+        try(Connection c = new Connection(port)){
+            System.out.println("server " + c.ask("STATS"));
+        }
+    }
+
+    //sends every pair rounds times over one connection, starting at a different pair per thread
+    private static void run(int port, ArrayList<String> pairs, int offset, int rounds, LatencyHistogram latency) throws IOException{
+        try(Connection c = new Connection(port)){
+            for(int r = 0; r < rounds; r++){
+                for(int i = 0; i < pairs.size(); i++){
+                    String pair = pairs.get((i + offset) % pairs.size());
+                    long start = System.nanoTime();
+                    c.ask(pair);
+                    latency.record(System.nanoTime() - start);
+                }
+            }
+        }
+    }
+
+    //one open connection to the server
+    private static final class Connection implements AutoCloseable {
+        private final Socket socket;
+        private final BufferedReader in;
+        private final PrintWriter out;
+
+        Connection(int port) throws IOException{
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            socket.setTcpNoDelay(true);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)));
+        }
+
+        String ask(String request) throws IOException{
+            out.println(request);
+            out.flush();
+            String answer = in.readLine();
+            if(answer == null) throw new IOException("Server closed the connection");
+            return answer;
+        }
+
+        @Override
+        public void close() throws IOException{
+            out.println("QUIT");
+            out.flush();
+            socket.close();
+        }
+    }
+}
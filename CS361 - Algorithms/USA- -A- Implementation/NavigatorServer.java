@@ -0,0 +1,190 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+  Serves route queries over a plain socket on localhost, so the map is loaded and the JIT warmed once instead of on every run.
+  Each connection gets its own thread from a pool and speaks a line protocol:
+
+    First-Second    answered with one line, the same message the interactive Navigator prints
+    STATS           answered with one line summarising the latency histogram of every query served so far, followed by the
+                    search counters (see SearchStats)
+    QUIT            or a blank line, closes the connection
+
+  The graph is only read while serving, so connections run their queries side by side.
+
+  Usage: java NavigatorServer [-port p] [-landmarks k]
+*/
+class NavigatorServer {
+
+    static final int DEFAULT_PORT = 4361;
+    private static final String LANDMARK_FILE = "US-capitals.landmarks";
+
+    private final Graph graph;
+    private final ServerSocket socket;
+    private final ExecutorService connections = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "navigator-connection");
+        t.setDaemon(true);
+        return t;
+    });
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final SearchStats searches = new SearchStats();
+    private volatile boolean running = true;
+
+    public static void main(String[] args) throws IOException{
+        int port = DEFAULT_PORT;
+        int landmarks = 0;
+        for(int i = 0; i + 1 < args.length; i += 2){
+            if(args[i].equals("-port")) port = Integer.parseInt(args[i + 1]);
+            else if(args[i].equals("-landmarks")) landmarks = Integer.parseInt(args[i + 1]);
+            else{
+                System.err.println("Usage: java NavigatorServer [-port <p>] [-landmarks <k>]");
+                System.exit(1);
+            }
+        }
+
+        Graph graph = Navigator.openGraph("US-capitals.geo", "US-capitals.graph");
+        if(landmarks > 0) graph.useLandmarks(landmarks, LANDMARK_FILE);
+        NavigatorServer server = new NavigatorServer(graph, port);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            System.out.println("Served " + server.latency());
+        }));
+        System.out.println("Serving " + graph.countCities() + " cities on localhost:" + server.port());
+        server.serve();
+    }
+
+    /**
+      Opens the server socket on the loopback address and warms up the graph. Nothing is answered until serve is called.
+      @param graph The graph to answer queries from. It must not be changed while the server is running.
+      @param port The port to listen on, or 0 for any free port.
+      @throws IOException If the port cannot be opened.
+    */
+    public NavigatorServer(Graph graph, int port) throws IOException{
+        this.graph = graph;
+        warmUp(graph);
+        graph.useSearchStats(searches);
+        socket = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+    }
+
+    /**
+      Returns the port the server is listening on.
+      @return The local port.
+    */
+    public int port(){
+        return socket.getLocalPort();
+    }
+
+    /**
+      Returns the histogram of query latencies, measured from reading a request line to writing its answer.
+      @return The server's latency histogram.
+    */
+    public LatencyHistogram latency(){
+        return latency;
+    }
+
+    /**
+      Accepts connections until the server is closed, handing each one to its own thread.
+    */
+    public void serve(){
+        while(running){
+            try{
+                Socket client = socket.accept();
+                connections.execute(() -> handle(client));
+            }
+            catch(IOException e){
+                if(running) System.err.println("Unable to accept a connection: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+      Starts serving on a background thread.
+      @return The thread accepting connections.
+    */
+    public Thread start(){
+        Thread acceptor = new Thread(this::serve, "navigator-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return acceptor;
+    }
+
+    /**
+      Stops accepting connections and waits briefly for open ones to finish their current query.
+    */
+    public void close(){
+        running = false;
+        try{
+            socket.close();
+        }
+        catch(IOException e){
+            //already closed
+        }
+        connections.shutdownNow();
+        try{
+            connections.awaitTermination(1, TimeUnit.SECONDS);
+        }
+        catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    //answers one connection's requests until it quits or goes away
+    private void handle(Socket client){
+        try(Socket s = client;
+            BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+            PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8)))){
+
+            s.setTcpNoDelay(true);
+            String line;
+            while((line = in.readLine()) != null){
+                if(line.length() == 0 || line.equals("QUIT")) break;
+                if(line.equals("STATS")){
+                    out.println(latency + " | search " + searches);
+                }
+                else{
+                    long start = System.nanoTime();
+                    out.println(answer(line));
+                    latency.record(System.nanoTime() - start);
+                }
+                out.flush();
+            }
+        }
+        catch(IOException e){
+            //the client went away; nothing to answer
+        }
+    }
+
+    //routes one "First-Second" request and describes the result
+    private String answer(String line){
+        int hyphen = line.indexOf('-');
+        if(hyphen == -1) return "Please enter two valid cities";
+        String first = line.substring(0, hyphen);
+        String second = line.substring(hyphen + 1);
+        SimpleEntry<ArrayList<String>,Double> response = null;
+        if(graph.contains(first) && graph.contains(second)) response = graph.findPath(first, second);
+        return Navigator.describe(graph, first, second, response);
+    }
+
+    //builds everything findPath creates on first use, so concurrent queries only ever read the graph
+    private static void warmUp(Graph graph){
+        RoadNetwork net = graph.freeze();
+        if(net.countCities() > 0){
+            String city = net.name(0);
+            graph.connected(city, city);
+            graph.findPath(city, net.name(net.countCities() - 1));
+        }
+    }
+}
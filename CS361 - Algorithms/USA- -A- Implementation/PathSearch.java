@@ -0,0 +1,425 @@
+import java.util.Arrays;
+
+/**
+  A reusable A* search over a RoadNetwork. All of the search state lives in primitive arrays that are kept between queries:
+  best distances, predecessors, and generation stamps that mark which entries belong to the current query, so nothing has to be
+  cleared or allocated once the arrays have grown to fit the network. The open list is an indexed heap, so a city whose distance
+  improves has its key lowered in place instead of being queued twice. Each thread gets its own instance through forThread.
+
+  A bidirectional mode searches from both ends at once. It keeps a second set of arrays for the backward side, which are only
+  allocated the first time that mode is used.
+*/
+final class PathSearch {
+
+    private static final ThreadLocal<PathSearch> LOCAL = new ThreadLocal<PathSearch>(){
+        @Override
+        protected PathSearch initialValue(){
+            return new PathSearch();
+        }
+    };
+
+    private double[] distanceTo = new double[0]; //best known distance, valid only where seen == generation
+    private int[] reachedFrom = new int[0];
+    private int[] seen = new int[0];
+    private int[] settled = new int[0];
+    private int generation;
+
+    private final IndexedHeap openList = new IndexedHeap(IndexedHeap.DEFAULT_ARITY, 0);
+
+    //backward side of a bidirectional search, stamped with the same generation
+    private double[] distanceFrom = new double[0];
+    private int[] reachedBack = new int[0];
+    private int[] seenBack = new int[0];
+    private int[] settledBack = new int[0];
+    private final IndexedHeap backList = new IndexedHeap(IndexedHeap.DEFAULT_ARITY, 0);
+
+    private int[] wanted = new int[0]; //marks the targets of a one-to-many search with the current generation
+    private int[] reached = new int[16]; //cities settled by a budgeted search, in the order they were settled
+
+    private int lastStart = -1;
+    private int lastFinish = -1;
+
+    private SearchStats stats; //where searches report their counters, or null when nobody is listening
+
+    /**
+      Returns the calling thread's search, sized to fit the given network.
+      @param net The network about to be searched.
+      @return A search owned by the calling thread.
+    */
+    static PathSearch forThread(RoadNetwork net){
+        PathSearch search = LOCAL.get();
+        search.ensureCapacity(net.countCities());
+        return search;
+    }
+
+    /**
+      Sets where the following search and searchBidirectional calls report what they did.
+      @param stats The stats to report into, or null to stop reporting.
+    */
+    public void setStats(SearchStats stats){
+        this.stats = stats;
+    }
+
+    /**
+      Finds the shortest path between two cities with A*, using the great-circle distance to the goal as the heuristic.
+      @param net The network to search.
+      @param start The id of the starting city.
+      @param finish The id of the destination city.
+      @return The length of the shortest path, or -1 if no path exists.
+    */
+    public double search(RoadNetwork net, int start, int finish){
+        return search(net, start, finish, net);
+    }
+
+    /**
+      Finds the shortest path between two cities with A*.
+      @param net The network to search.
+      @param start The id of the starting city.
+      @param finish The id of the destination city.
+      @param heuristic The lower bound used to guide the search. Must be consistent, since cities are never expanded twice.
+      @return The length of the shortest path, or -1 if no path exists.
+    */
+    public double search(RoadNetwork net, int start, int finish, Heuristic heuristic){
+        long began = (stats == null) ? 0 : System.nanoTime();
+        ensureCapacity(net.countCities());
+        nextGeneration();
+        lastStart = start;
+        lastFinish = -1;
+        openList.clear();
+
+        discover(start, 0.0, -1);
+        openList.insert(start, heuristic.estimate(start, finish));
+
+        int popped = 0, relaxed = 0, skipped = 0, high = 1;
+        double result = -1;
+        while(!openList.isEmpty()){
+            int current = openList.removeMin();
+            settled[current] = generation;
+            popped++;
+
+            if(current == finish){
+                lastFinish = finish;
+                result = distanceTo[finish];
+                break;
+            }
+
+            double base = distanceTo[current];
+            for(int e = net.edgeStart(current); e < net.edgeEnd(current); e++){
+                int next = net.target(e);
+                if(settled[next] == generation){
+                    skipped++;
+                    continue;
+                }
+
+                double distance = base + net.weight(e);
+                if(seen[next] == generation && distance >= distanceTo[next]){
+                    skipped++;
+                    continue;
+                }
+
+                discover(next, distance, current);
+                openList.insertOrDecrease(next, distance + heuristic.estimate(next, finish));
+                relaxed++;
+                if(openList.size() > high) high = openList.size();
+            }
+        }
+        if(stats != null) stats.record(start, finish, popped, relaxed, skipped, high, System.nanoTime() - began);
+        return result;
+    }
+
+    /**
+      Finds the shortest path between two cities with bidirectional A*, searching forward from start and backward from finish
+      until the two searches prove they cannot find anything shorter than the best meeting point so far.
+
+      Both sides use the average potential p(v) = (h(v,finish) - h(v,start)) / 2, the forward side adding it to its keys and
+      the backward side subtracting it. Both searches then explore the same reduced-cost graph, so the plain bidirectional
+      Dijkstra stopping rule applies: stop once the two smallest keys add up to at least the best path found.
+      @param net The network to search. Its roads must be two-way (see RoadNetwork).
+      @param start The id of the starting city.
+      @param finish The id of the destination city.
+      @param heuristic The lower bound used to build the potential. Must be consistent.
+      @return The length of the shortest path, or -1 if no path exists.
+    */
+    public double searchBidirectional(RoadNetwork net, int start, int finish, Heuristic heuristic){
+        long began = (stats == null) ? 0 : System.nanoTime();
+        int n = net.countCities();
+        ensureCapacity(n);
+        if(seenBack.length < n){
+            distanceFrom = new double[n];
+            reachedBack = new int[n];
+            seenBack = new int[n];
+            settledBack = new int[n];
+            backList.ensureCapacity(n);
+        }
+        nextGeneration();
+        lastStart = start;
+        lastFinish = -1;
+        openList.clear();
+        backList.clear();
+
+        if(start == finish){
+            discover(start, 0.0, -1);
+            lastFinish = finish;
+            if(stats != null) stats.record(start, finish, 0, 0, 0, 0, System.nanoTime() - began);
+            return 0.0;
+        }
+
+        double startPotential = potential(heuristic, start, start, finish);
+        double finishPotential = potential(heuristic, finish, start, finish);
+        if(Double.isNaN(startPotential) || Double.isNaN(finishPotential)){
+            if(stats != null) stats.record(start, finish, 0, 0, 0, 0, System.nanoTime() - began);
+            return -1;
+        }
+
+        discover(start, 0.0, -1);
+        openList.insert(start, startPotential);
+        seenBack[finish] = generation;
+        distanceFrom[finish] = 0.0;
+        reachedBack[finish] = -1;
+        backList.insert(finish, -finishPotential);
+
+        double best = Double.POSITIVE_INFINITY;
+        int meet = -1;
+        int popped = 0, relaxed = 0, skipped = 0, high = 2;
+        while(!openList.isEmpty() && !backList.isEmpty()){
+            if(openList.minKey() + backList.minKey() >= best) break;
+            popped++;
+
+            if(openList.minKey() <= backList.minKey()){
+                int current = openList.removeMin();
+                settled[current] = generation;
+                double base = distanceTo[current];
+                for(int e = net.edgeStart(current); e < net.edgeEnd(current); e++){
+                    int next = net.target(e);
+                    if(settled[next] == generation){
+                        skipped++;
+                        continue;
+                    }
+                    double distance = base + net.weight(e);
+                    if(seen[next] == generation && distance >= distanceTo[next]){
+                        skipped++;
+                        continue;
+                    }
+                    double p = potential(heuristic, next, start, finish);
+                    if(Double.isNaN(p)) continue; //next cannot reach one of the ends
+
+                    discover(next, distance, current);
+                    openList.insertOrDecrease(next, distance + p);
+                    relaxed++;
+                    if(openList.size() + backList.size() > high) high = openList.size() + backList.size();
+                    if(seenBack[next] == generation && distance + distanceFrom[next] < best){
+                        best = distance + distanceFrom[next];
+                        meet = next;
+                    }
+                }
+            }
+            else{
+                int current = backList.removeMin();
+                settledBack[current] = generation;
+                double base = distanceFrom[current];
+                for(int e = net.edgeStart(current); e < net.edgeEnd(current); e++){
+                    int next = net.target(e);
+                    if(settledBack[next] == generation){
+                        skipped++;
+                        continue;
+                    }
+                    double distance = base + net.weight(e);
+                    if(seenBack[next] == generation && distance >= distanceFrom[next]){
+                        skipped++;
+                        continue;
+                    }
+                    double p = potential(heuristic, next, start, finish);
+                    if(Double.isNaN(p)) continue;
+
+                    seenBack[next] = generation;
+                    distanceFrom[next] = distance;
+                    reachedBack[next] = current;
+                    backList.insertOrDecrease(next, distance - p);
+                    relaxed++;
+                    if(openList.size() + backList.size() > high) high = openList.size() + backList.size();
+                    if(seen[next] == generation && distance + distanceTo[next] < best){
+                        best = distance + distanceTo[next];
+                        meet = next;
+                    }
+                }
+            }
+        }
+        if(stats != null) stats.record(start, finish, popped, relaxed, skipped, high, System.nanoTime() - began);
+        if(meet == -1) return -1;
+
+        //splice the backward half onto the forward predecessors so the path can be read from finish back to start
+        for(int c = meet; c != finish; ){
+            int next = reachedBack[c];
+            reachedFrom[next] = c;
+            c = next;
+        }
+        lastFinish = finish;
+        return best;
+    }
+
+    /**
+      Measures the road distance from one city to many others with a single Dijkstra search, which stops as soon as every target
+      has been settled.
+      @param net The network to search.
+      @param source The id of the city to measure from.
+      @param targets The ids of the cities to measure to. Repeats are allowed.
+      @param out The array to write distances into. The distance to targets[i] goes in out[offset + i], or -1 if it is unreachable.
+      @param offset The position in out of the first distance.
+    */
+    public void distancesFrom(RoadNetwork net, int source, int[] targets, double[] out, int offset){
+        int n = net.countCities();
+        ensureCapacity(n);
+        if(wanted.length < n) wanted = new int[n];
+        nextGeneration();
+        lastStart = source;
+        lastFinish = -1;
+        openList.clear();
+
+        int remaining = 0;
+        for(int t : targets){
+            if(wanted[t] != generation){
+                wanted[t] = generation;
+                remaining++;
+            }
+        }
+
+        discover(source, 0.0, -1);
+        openList.insert(source, 0.0);
+        while(remaining > 0 && !openList.isEmpty()){
+            int current = openList.removeMin();
+            settled[current] = generation;
+            if(wanted[current] == generation) remaining--;
+
+            double base = distanceTo[current];
+            for(int e = net.edgeStart(current); e < net.edgeEnd(current); e++){
+                int next = net.target(e);
+                if(settled[next] == generation) continue;
+                double distance = base + net.weight(e);
+                if(seen[next] == generation && distance >= distanceTo[next]) continue;
+                discover(next, distance, current);
+                openList.insertOrDecrease(next, distance);
+            }
+        }
+
+        for(int i = 0; i < targets.length; i++){
+            out[offset + i] = (settled[targets[i]] == generation) ? distanceTo[targets[i]] : -1;
+        }
+    }
+
+    /**
+      Finds every city within a road distance of a source with a Dijkstra search that stops at the budget.
+      @param net The network to search.
+      @param source The id of the city to measure from.
+      @param budget The longest road distance to include, in Kilometers.
+      @return The cities reached, nearest first, including the source itself.
+    */
+    public Isochrone reachableWithin(RoadNetwork net, int source, double budget){
+        ensureCapacity(net.countCities());
+        nextGeneration();
+        lastStart = source;
+        lastFinish = -1;
+        openList.clear();
+
+        int count = 0;
+        discover(source, 0.0, -1);
+        openList.insert(source, 0.0);
+        while(!openList.isEmpty() && openList.minKey() <= budget){
+            int current = openList.removeMin();
+            settled[current] = generation;
+            if(count == reached.length) reached = Arrays.copyOf(reached, count * 2);
+            reached[count++] = current;
+
+            double base = distanceTo[current];
+            for(int e = net.edgeStart(current); e < net.edgeEnd(current); e++){
+                int next = net.target(e);
+                if(settled[next] == generation) continue;
+                double distance = base + net.weight(e);
+                if(distance > budget) continue; //never worth queueing
+                if(seen[next] == generation && distance >= distanceTo[next]) continue;
+                discover(next, distance, current);
+                openList.insertOrDecrease(next, distance);
+            }
+        }
+
+        int[] cities = Arrays.copyOf(reached, count);
+        double[] distances = new double[count];
+        for(int i = 0; i < count; i++){
+            distances[i] = distanceTo[cities[i]];
+        }
+        return new Isochrone(net, source, budget, cities, distances);
+    }
+
+    //the average potential of a city, or NaN if the heuristic says it cannot lie on a path between the ends
+    private static double potential(Heuristic heuristic, int city, int start, int finish){
+        double toFinish = heuristic.estimate(city, finish);
+        double toStart = heuristic.estimate(city, start);
+        if(toFinish == Double.POSITIVE_INFINITY || toStart == Double.POSITIVE_INFINITY) return Double.NaN;
+        return (toFinish - toStart) / 2;
+    }
+
+    /**
+      Returns the number of cities on the path found by the last successful search, including both ends.
+      @return The path's length in cities, or 0 if the last search found no path.
+    */
+    public int pathLength(){
+        if(lastFinish == -1) return 0;
+        int length = 1;
+        for(int c = lastFinish; c != lastStart; c = reachedFrom[c]){
+            length++;
+        }
+        return length;
+    }
+
+    /**
+      Copies the path found by the last successful search into a buffer, from start to finish.
+      @param buffer An array at least pathLength() long.
+      @return The number of cities written.
+    */
+    public int copyPath(int[] buffer){
+        int length = pathLength();
+        int i = length - 1;
+        for(int c = lastFinish; i >= 0; c = reachedFrom[c]){
+            buffer[i--] = c;
+        }
+        return length;
+    }
+
+    //records a new best distance and predecessor for a city
+    private void discover(int city, double distance, int from){
+        seen[city] = generation;
+        distanceTo[city] = distance;
+        reachedFrom[city] = from;
+    }
+
+    //moves to a fresh generation, wiping the stamps only when the counter wraps around
+    private void nextGeneration(){
+        generation++;
+        if(generation == Integer.MAX_VALUE){
+            Arrays.fill(seen, 0);
+            Arrays.fill(settled, 0);
+            Arrays.fill(seenBack, 0);
+            Arrays.fill(settledBack, 0);
+            Arrays.fill(wanted, 0);
+            generation = 1;
+        }
+    }
+
+    //grows the per-city arrays to hold at least n cities
+    private void ensureCapacity(int n){
+        if(seen.length >= n) return;
+        distanceTo = new double[n];
+        reachedFrom = new int[n];
+        seen = new int[n];
+        settled = new int[n];
+        generation = 0;
+        openList.ensureCapacity(n);
+        if(wanted.length > 0) wanted = new int[n];
+        if(seenBack.length > 0){
+            distanceFrom = new double[n];
+            reachedBack = new int[n];
+            seenBack = new int[n];
+            settledBack = new int[n];
+            backList.ensureCapacity(n);
+        }
+    }
+}
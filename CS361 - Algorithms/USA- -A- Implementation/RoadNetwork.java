@@ -0,0 +1,170 @@
+/**
+  An immutable, compressed-sparse-row form of a road graph. Cities are numbered with dense int ids, the edges leaving city i are
+  stored in targets/weights between offsets[i] and offsets[i+1], and coordinates are kept in parallel primitive arrays. City names
+  only appear in the name/id dictionary (a NamePool), so searches never touch a String or a boxed value. As a Heuristic, a network estimates
+  distances by the great-circle distance between cities.
+
+  Roads are two-way: for every edge from a to b there is an edge from b to a of the same length. Graph keeps it that way by
+  adding both directions of a road together and, when a city is removed or re-added, removing both directions of its roads,
+  so every network frozen from a Graph, and every graph file written from one, has it. Bidirectional search, AlternativeRoutes
+  and DynamicShortestPathTree all walk edges backwards as if they were forwards, and rely on it.
+*/
+final class RoadNetwork implements Heuristic {
+
+    private static final double EARTH_RADIUS = 6371;
+
+    private final NamePool names;
+    private final int[] offsets;
+    private final int[] targets;
+    private final double[] weights;
+    private final double[] lat, lng;
+
+    /**
+      Wraps already-built CSR arrays. The arrays are not copied, so the caller must not change them afterwards.
+      @param names The name of each city, indexed by id.
+      @param offsets The first edge of each city, with one extra trailing entry holding the total edge count.
+      @param targets The id of the city at the far end of each edge.
+      @param weights The length of each edge in kilometers.
+      @param lat The latitude of each city in radians.
+      @param lng The longitude of each city in radians.
+    */
+    RoadNetwork(String[] names, int[] offsets, int[] targets, double[] weights, double[] lat, double[] lng){
+        this(NamePool.build(names), offsets, targets, weights, lat, lng);
+    }
+
+    /**
+      Wraps already-built CSR arrays and a name dictionary. The arrays are not copied, so the caller must not change them afterwards.
+      @param names The names of the cities.
+      @param offsets The first edge of each city, with one extra trailing entry holding the total edge count.
+      @param targets The id of the city at the far end of each edge.
+      @param weights The length of each edge in kilometers.
+      @param lat The latitude of each city in radians.
+      @param lng The longitude of each city in radians.
+    */
+    RoadNetwork(NamePool names, int[] offsets, int[] targets, double[] weights, double[] lat, double[] lng){
+        int n = names.count();
+        if(offsets.length != n + 1 || lat.length != n || lng.length != n
+            || targets.length != offsets[n] || weights.length != targets.length){
+            throw new IllegalArgumentException("Inconsistent road network arrays");
+        }
+        this.names = names;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.lat = lat;
+        this.lng = lng;
+    }
+
+    /**
+      Returns the number of cities in the network.
+      @return The number of cities in the network.
+    */
+    public int countCities(){
+        return lat.length;
+    }
+
+    /**
+      Returns the number of directed edge entries in the network. Every road is stored once in each direction.
+      @return The number of directed edge entries.
+    */
+    public int countEdges(){
+        return targets.length;
+    }
+
+    /**
+      Looks up the id of a city.
+      @param name The city's name.
+      @return The city's id, or -1 if no city has that name.
+    */
+    public int id(String name){
+        return names.id(name);
+    }
+
+    /**
+      Looks up the name of a city.
+      @param id The city's id.
+      @return The city's name.
+    */
+    public String name(int id){
+        return names.name(id);
+    }
+
+    /**
+      Returns the network's name dictionary.
+      @return The names of the cities.
+    */
+    NamePool names(){
+        return names;
+    }
+
+    /**
+      Returns the index of the first edge leaving a city.
+      @param id The city's id.
+      @return The index of the city's first edge.
+    */
+    public int edgeStart(int id){
+        return offsets[id];
+    }
+
+    /**
+      Returns the index one past the last edge leaving a city.
+      @param id The city's id.
+      @return The index one past the city's last edge.
+    */
+    public int edgeEnd(int id){
+        return offsets[id + 1];
+    }
+
+    /**
+      Returns the city an edge leads to.
+      @param edge The edge's index.
+      @return The id of the city at the far end of the edge.
+    */
+    public int target(int edge){
+        return targets[edge];
+    }
+
+    /**
+      Returns the length of an edge.
+      @param edge The edge's index.
+      @return The length of the edge in kilometers.
+    */
+    public double weight(int edge){
+        return weights[edge];
+    }
+
+    /**
+      Returns the latitude of a city.
+      @param id The city's id.
+      @return The city's latitude in radians.
+    */
+    public double latitude(int id){
+        return lat[id];
+    }
+
+    /**
+      Returns the longitude of a city.
+      @param id The city's id.
+      @return The city's longitude in radians.
+    */
+    public double longitude(int id){
+        return lng[id];
+    }
+
+    /**
+      Calculates the "crow flies distance" between two cities, in Kilometers.
+      @param a The id of the first city.
+      @param b The id of the second city.
+      @return The great-circle distance between the two cities.
+    */
+    public double crowFliesDistance(int a, int b){
+        //rounding can push the cosine just past 1 for nearby cities, which would make acos return NaN and upset the heap
+        double cos = (Math.sin(lat[a]) * Math.sin(lat[b])) + (Math.cos(lat[a]) * Math.cos(lat[b]) * Math.cos(lng[a] - lng[b]));
+        return Math.acos(Math.min(1.0, cos)) * EARTH_RADIUS;
+    }
+
+    @Override
+    public double estimate(int city, int goal){
+        return crowFliesDistance(city, goal);
+    }
+}
@@ -0,0 +1,136 @@
+import java.util.ArrayList;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+  A bounded least-recently-used cache of findPath answers, keyed by (first, goal). Every lookup carries the version of the graph
+  it is asking about, and the whole cache is dropped the first time it sees a newer version, so an answer computed before the
+  graph changed is never returned after it. All methods are synchronized, so one cache can be shared by query threads.
+*/
+final class RouteCache {
+
+    private final int capacity;
+    private final LinkedHashMap<SimpleEntry<String,String>, SimpleEntry<ArrayList<String>,Double>> routes;
+    private long graphVersion;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    /**
+      Creates an empty cache.
+      @param capacity The most routes the cache will hold before evicting the least recently used one.
+    */
+    public RouteCache(int capacity){
+        if(capacity <= 0) throw new IllegalArgumentException("Cache capacity must be positive");
+        this.capacity = capacity;
+        routes = new LinkedHashMap<SimpleEntry<String,String>, SimpleEntry<ArrayList<String>,Double>>(16, 0.75f, true){
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<SimpleEntry<String,String>, SimpleEntry<ArrayList<String>,Double>> eldest){
+                if(size() <= RouteCache.this.capacity) return false;
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    /**
+      Looks up a cached route.
+      @param first The name of the first city.
+      @param goal The name of the second city.
+      @param version The current version of the graph.
+      @return A copy of the cached answer, or null if there is none for this version of the graph. Asking about an older version
+      than the cache holds always misses, so a reader still working on an older snapshot never gets a newer answer.
+    */
+    public synchronized SimpleEntry<ArrayList<String>,Double> get(String first, String goal, long version){
+        sync(version);
+        if(version != graphVersion){
+            misses++;
+            return null;
+        }
+        SimpleEntry<ArrayList<String>,Double> route = routes.get(new SimpleEntry<String,String>(first, goal));
+        if(route == null){
+            misses++;
+            return null;
+        }
+        hits++;
+        return copy(route);
+    }
+
+    /**
+      Stores a route. Answers computed against an older version of the graph are ignored.
+      @param first The name of the first city.
+      @param goal The name of the second city.
+      @param version The version of the graph the answer was computed against.
+      @param route The answer from findPath.
+    */
+    public synchronized void put(String first, String goal, long version, SimpleEntry<ArrayList<String>,Double> route){
+        sync(version);
+        if(version != graphVersion) return;
+        routes.put(new SimpleEntry<String,String>(first, goal), copy(route));
+    }
+
+    /**
+      Returns the number of routes in the cache.
+      @return The number of cached routes.
+    */
+    public synchronized int size(){
+        return routes.size();
+    }
+
+    /**
+      Returns how many lookups found a route.
+      @return The number of hits.
+    */
+    public synchronized long hits(){
+        return hits;
+    }
+
+    /**
+      Returns how many lookups found nothing.
+      @return The number of misses.
+    */
+    public synchronized long misses(){
+        return misses;
+    }
+
+    /**
+      Returns how many routes were pushed out to make room for newer ones.
+      @return The number of evictions.
+    */
+    public synchronized long evictions(){
+        return evictions;
+    }
+
+    /**
+      Returns how many times the cache was emptied because the graph changed.
+      @return The number of invalidations.
+    */
+    public synchronized long invalidations(){
+        return invalidations;
+    }
+
+    @Override
+    public synchronized String toString(){
+        return "RouteCache[size=" + routes.size() + "/" + capacity + ", hits=" + hits + ", misses=" + misses
+            + ", evictions=" + evictions + ", invalidations=" + invalidations + "]";
+    }
+
+    //empties the cache if the graph has moved on since the cached routes were computed
+    private void sync(long version){
+        if(version <= graphVersion) return;
+        if(!routes.isEmpty()) invalidations++;
+        routes.clear();
+        graphVersion = version;
+    }
+
+    //copies an answer, so callers can't change what the cache holds
+    private static SimpleEntry<ArrayList<String>,Double> copy(SimpleEntry<ArrayList<String>,Double> route){
+        ArrayList<String> path = (route.getKey() == null) ? null : new ArrayList<String>(route.getKey());
+        return new SimpleEntry<ArrayList<String>,Double>(path, route.getValue());
+    }
+}
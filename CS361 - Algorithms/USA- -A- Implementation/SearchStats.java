@@ -0,0 +1,173 @@
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+  Collects what route searches did, for finding out why a query was slow. A search counts its work in local variables, which
+  costs next to nothing, and reports once at the end only when a SearchStats is attached, so leaving stats off costs a single
+  null check per query. Totals are kept in LongAdders and the wall time in a LatencyHistogram, so any number of search threads
+  can report into one SearchStats without contending. A Listener can also be attached to see every query's own numbers.
+
+  The counters are:
+    popped      cities taken off the open list and expanded
+    relaxed     roads that gave a city a better distance
+    skipped     roads that did not, because the far city was already settled or already had a distance at least as good.
+                A search that queued duplicate entries instead of lowering keys would pop each of these later as a stale entry.
+    heap        the most cities on the open list at once (both lists for a bidirectional search)
+    cache hits  queries answered from the Graph's route cache, which run no search and so add nothing to the others
+*/
+final class SearchStats {
+
+    /**
+      Receives the numbers of each query as it finishes. Called on the searching thread, so it should be quick.
+    */
+    public interface Listener {
+        void searched(Trace trace);
+    }
+
+    /**
+      One query's numbers.
+    */
+    public static final class Trace {
+        public final int start, finish;
+        public final int popped, relaxed, skipped, heapHighWater;
+        public final long nanos;
+
+        Trace(int start, int finish, int popped, int relaxed, int skipped, int heapHighWater, long nanos){
+            this.start = start;
+            this.finish = finish;
+            this.popped = popped;
+            this.relaxed = relaxed;
+            this.skipped = skipped;
+            this.heapHighWater = heapHighWater;
+            this.nanos = nanos;
+        }
+
+        @Override
+        public String toString(){
+            return String.format("%d->%d popped=%d relaxed=%d skipped=%d heap=%d time=%.1fus",
+                start, finish, popped, relaxed, skipped, heapHighWater, nanos / 1e3);
+        }
+    }
+
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder popped = new LongAdder();
+    private final LongAdder relaxed = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAccumulator heapHighWater = new LongAccumulator(Math::max, 0);
+    private final LongAccumulator mostPopped = new LongAccumulator(Math::max, 0);
+    private final LatencyHistogram time = new LatencyHistogram();
+    private volatile Listener listener;
+
+    /**
+      Attaches a listener that sees every query, replacing any earlier one.
+      @param listener The listener, or null to stop tracing individual queries.
+    */
+    public void setListener(Listener listener){
+        this.listener = listener;
+    }
+
+    //called by a search as it finishes
+    void record(int start, int finish, int popped, int relaxed, int skipped, int heapHighWater, long nanos){
+        queries.increment();
+        this.popped.add(popped);
+        this.relaxed.add(relaxed);
+        this.skipped.add(skipped);
+        this.heapHighWater.accumulate(heapHighWater);
+        mostPopped.accumulate(popped);
+        time.record(nanos);
+        Listener l = listener;
+        if(l != null) l.searched(new Trace(start, finish, popped, relaxed, skipped, heapHighWater, nanos));
+    }
+
+    //called when a query is answered from the route cache instead of searching
+    void recordCacheHit(){
+        cacheHits.increment();
+    }
+
+    /**
+      Returns the number of searches recorded.
+      @return The query count.
+    */
+    public long queries(){
+        return queries.sum();
+    }
+
+    /**
+      Returns the number of queries answered from the route cache. These are not counted as searches.
+      @return The cache hit count.
+    */
+    public long cacheHits(){
+        return cacheHits.sum();
+    }
+
+    /**
+      Returns the total number of cities expanded.
+      @return The popped count, over every query.
+    */
+    public long popped(){
+        return popped.sum();
+    }
+
+    /**
+      Returns the total number of roads that improved a distance.
+      @return The relaxed count, over every query.
+    */
+    public long relaxed(){
+        return relaxed.sum();
+    }
+
+    /**
+      Returns the total number of roads that did not improve a distance.
+      @return The skipped count, over every query.
+    */
+    public long skipped(){
+        return skipped.sum();
+    }
+
+    /**
+      Returns the largest open list any query needed.
+      @return The heap high-water mark, in cities.
+    */
+    public long heapHighWater(){
+        return heapHighWater.get();
+    }
+
+    /**
+      Returns the most cities any single query expanded.
+      @return The largest popped count of one query.
+    */
+    public long mostPopped(){
+        return mostPopped.get();
+    }
+
+    /**
+      Returns the histogram of wall time per search.
+      @return The search time histogram.
+    */
+    public LatencyHistogram time(){
+        return time;
+    }
+
+    /**
+      Clears every counter and the histogram.
+    */
+    public void reset(){
+        queries.reset();
+        cacheHits.reset();
+        popped.reset();
+        relaxed.reset();
+        skipped.reset();
+        heapHighWater.reset();
+        mostPopped.reset();
+        time.reset();
+    }
+
+    @Override
+    public String toString(){
+        long n = Math.max(1, queries());
+        return String.format("queries=%d cacheHits=%d popped=%d (%.1f/q, max %d) relaxed=%d (%.1f/q) skipped=%d (%.1f/q) heapHighWater=%d time[%s]",
+            queries(), cacheHits(), popped(), (double)popped() / n, mostPopped(), relaxed(), (double)relaxed() / n, skipped(),
+            (double)skipped() / n, heapHighWater(), time);
+    }
+}
@@ -0,0 +1,192 @@
+import java.util.Arrays;
+
+/**
+  A static k-d tree over the cities of a RoadNetwork for coordinate lookups. Cities are placed on the unit sphere as (x, y, z)
+  vectors, where straight-line (chord) distance grows with great-circle distance, so the nearest city by chord is also the
+  nearest along the Earth's surface and there are no special cases at the poles or the date line. The tree is stored
+  implicitly in one int array: the middle of each range is the splitting city, and the halves on either side are its subtrees.
+*/
+final class SpatialIndex {
+
+    private static final double EARTH_RADIUS = 6371;
+
+    private final RoadNetwork net;
+    private final double[] coords;  //x, y, z of city i at 3i, 3i+1, 3i+2
+    private final int[] tree;       //city ids in k-d order
+    private final byte[] axis;      //splitting axis of the city at each tree position
+
+    /**
+      Builds the index.
+      @param net The network whose cities are indexed.
+    */
+    public SpatialIndex(RoadNetwork net){
+        this.net = net;
+        int n = net.countCities();
+        coords = new double[3 * n];
+        tree = new int[n];
+        axis = new byte[n];
+        for(int i = 0; i < n; i++){
+            double lat = net.latitude(i), lng = net.longitude(i);
+            coords[3*i] = Math.cos(lat) * Math.cos(lng);
+            coords[3*i + 1] = Math.cos(lat) * Math.sin(lng);
+            coords[3*i + 2] = Math.sin(lat);
+            tree[i] = i;
+        }
+        build(0, n);
+    }
+
+    /**
+      Returns the network this index was built from.
+      @return The indexed road network.
+    */
+    public RoadNetwork network(){
+        return net;
+    }
+
+    /**
+      Finds the city closest to a point.
+      @param latitude The point's latitude in degrees.
+      @param longitude The point's longitude in degrees.
+      @return The id of the nearest city, or -1 if the network has no cities.
+    */
+    public int nearest(double latitude, double longitude){
+        if(tree.length == 0) return -1;
+        double[] q = unit(latitude, longitude);
+        double[] best = {Double.POSITIVE_INFINITY, -1}; //squared chord, city id
+        nearest(0, tree.length, q, best);
+        return (int)best[1];
+    }
+
+    /**
+      Finds every city within a distance of a point.
+      @param latitude The point's latitude in degrees.
+      @param longitude The point's longitude in degrees.
+      @param radiusKm The search radius along the Earth's surface, in Kilometers.
+      @return The ids of the cities within the radius, in no particular order.
+    */
+    public int[] within(double latitude, double longitude, double radiusKm){
+        if(radiusKm < 0 || tree.length == 0) return new int[0];
+        double[] q = unit(latitude, longitude);
+        double chord = (radiusKm >= Math.PI * EARTH_RADIUS) ? 2 : 2 * Math.sin(radiusKm / (2 * EARTH_RADIUS));
+        int[][] found = {new int[16]};
+        int count = within(0, tree.length, q, chord * chord, found, 0);
+        return Arrays.copyOf(found[0], count);
+    }
+
+    /**
+      Returns the great-circle distance from a point to a city.
+      @param latitude The point's latitude in degrees.
+      @param longitude The point's longitude in degrees.
+      @param city The city's id.
+      @return The distance in Kilometers.
+    */
+    public double distance(double latitude, double longitude, int city){
+        double[] q = unit(latitude, longitude);
+        return 2 * EARTH_RADIUS * Math.asin(Math.min(1.0, Math.sqrt(squaredChord(q, city)) / 2));
+    }
+
+    //arranges tree[from, to) into a k-d tree, splitting on the axis with the widest spread
+    private void build(int from, int to){
+        while(to - from > 1){
+            int split = widestAxis(from, to);
+            int mid = (from + to) >>> 1;
+            select(from, to - 1, mid, split);
+            axis[mid] = (byte)split;
+            build(from, mid);
+            from = mid + 1;
+        }
+    }
+
+    private int widestAxis(int from, int to){
+        double[] min = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY};
+        double[] max = {Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for(int i = from; i < to; i++){
+            for(int a = 0; a < 3; a++){
+                double v = coords[3*tree[i] + a];
+                if(v < min[a]) min[a] = v;
+                if(v > max[a]) max[a] = v;
+            }
+        }
+        int widest = 0;
+        for(int a = 1; a < 3; a++){
+            if(max[a] - min[a] > max[widest] - min[widest]) widest = a;
+        }
+        return widest;
+    }
+
+    //quickselect: puts the k-th smallest city along an axis at position k, smaller ones before it and larger ones after
+    private void select(int lo, int hi, int k, int a){
+        while(lo < hi){
+            double pivot = coords[3*tree[(lo + hi) >>> 1] + a];
+            int i = lo, j = hi;
+            while(i <= j){
+                while(coords[3*tree[i] + a] < pivot) i++;
+                while(coords[3*tree[j] + a] > pivot) j--;
+                if(i <= j){
+                    int t = tree[i];
+                    tree[i] = tree[j];
+                    tree[j] = t;
+                    i++;
+                    j--;
+                }
+            }
+            if(k <= j) hi = j;
+            else if(k >= i) lo = i;
+            else return;
+        }
+    }
+
+    private void nearest(int from, int to, double[] q, double[] best){
+        if(from >= to) return;
+        int mid = (from + to) >>> 1;
+        int city = tree[mid];
+        double d = squaredChord(q, city);
+        if(d < best[0]){
+            best[0] = d;
+            best[1] = city;
+        }
+        if(to - from == 1) return;
+
+        int a = axis[mid];
+        double diff = q[a] - coords[3*city + a];
+        //search the side holding the query first, then the other side only if it could hold something closer
+        if(diff < 0){
+            nearest(from, mid, q, best);
+            if(diff * diff < best[0]) nearest(mid + 1, to, q, best);
+        }
+        else{
+            nearest(mid + 1, to, q, best);
+            if(diff * diff < best[0]) nearest(from, mid, q, best);
+        }
+    }
+
+    private int within(int from, int to, double[] q, double limit, int[][] found, int count){
+        if(from >= to) return count;
+        int mid = (from + to) >>> 1;
+        int city = tree[mid];
+        if(squaredChord(q, city) <= limit){
+            if(count == found[0].length) found[0] = Arrays.copyOf(found[0], count * 2);
+            found[0][count++] = city;
+        }
+        if(to - from == 1) return count;
+
+        int a = axis[mid];
+        double diff = q[a] - coords[3*city + a];
+        if(diff <= 0 || diff * diff <= limit) count = within(from, mid, q, limit, found, count);
+        if(diff >= 0 || diff * diff <= limit) count = within(mid + 1, to, q, limit, found, count);
+        return count;
+    }
+
+    private double squaredChord(double[] q, int city){
+        double dx = q[0] - coords[3*city];
+        double dy = q[1] - coords[3*city + 1];
+        double dz = q[2] - coords[3*city + 2];
+        return dx*dx + dy*dy + dz*dz;
+    }
+
+    //the unit vector of a point given in degrees
+    private static double[] unit(double latitude, double longitude){
+        double lat = Math.toRadians(latitude), lng = Math.toRadians(longitude);
+        return new double[]{Math.cos(lat) * Math.cos(lng), Math.cos(lat) * Math.sin(lng), Math.sin(lat)};
+    }
+}
@@ -0,0 +1,198 @@
+import java.util.Random;
+
+/**
+  Builds synthetic road graphs for benchmarking the route finder. Roads are always at least as long as the great-circle distance
+  between their ends, so the A* heuristic stays admissible.
+*/
+class SyntheticGraphs {
+
+    private static final double EARTH_RADIUS = 6371;
+    private static final double SPACING = 0.05; //degrees between neighbouring grid cities
+
+    /**
+      Builds a rectangular grid of cities, each joined to its right and lower neighbours by a road 5-50% longer than the straight
+      line between them. Cities are named "row,column".
+      @param rows The number of rows in the grid.
+      @param cols The number of columns in the grid.
+      @param seed The seed for the random road lengths.
+      @return The grid graph.
+    */
+    public static Graph grid(int rows, int cols, long seed){
+        Random rand = new Random(seed);
+        Graph graph = new Graph();
+        for(int r = 0; r < rows; r++){
+            for(int c = 0; c < cols; c++){
+                graph.addCity(r + "," + c, 30 + r*SPACING, -120 + c*SPACING);
+            }
+        }
+        for(int r = 0; r < rows; r++){
+            for(int c = 0; c < cols; c++){
+                if(c + 1 < cols) connect(graph, rand, r, c, r, c + 1);
+                if(r + 1 < rows) connect(graph, rand, r, c, r + 1, c);
+            }
+        }
+        return graph;
+    }
+
+    /**
+      Builds the same kind of grid as grid(), but straight into a frozen road network, so grids of millions of cities fit in memory.
+      Grids too tall to fit between latitudes 30 and 70 at the usual spacing are packed more tightly.
+      @param rows The number of rows in the grid.
+      @param cols The number of columns in the grid.
+      @param seed The seed for the random road lengths.
+      @return The grid as a road network.
+    */
+    public static RoadNetwork gridNetwork(int rows, int cols, long seed){
+        Random rand = new Random(seed);
+        double spacing = Math.min(SPACING, 40.0 / Math.max(rows, cols));
+        int n = rows * cols;
+        String[] names = new String[n];
+        double[] lat = new double[n];
+        double[] lng = new double[n];
+        for(int r = 0; r < rows; r++){
+            for(int c = 0; c < cols; c++){
+                int id = r*cols + c;
+                names[id] = r + "," + c;
+                lat[id] = 30 + r*spacing;
+                lng[id] = -120 + c*spacing;
+            }
+        }
+        int[] offsets = new int[n + 1];
+        for(int r = 0; r < rows; r++){
+            for(int c = 0; c < cols; c++){
+                int degree = ((r > 0) ? 1 : 0) + ((r + 1 < rows) ? 1 : 0) + ((c > 0) ? 1 : 0) + ((c + 1 < cols) ? 1 : 0);
+                offsets[r*cols + c + 1] = offsets[r*cols + c] + degree;
+            }
+        }
+        int[] targets = new int[offsets[n]];
+        double[] weights = new double[offsets[n]];
+        int[] fill = new int[n];
+        for(int id = 0; id < n; id++){
+            int c = id % cols;
+            if(c + 1 < cols) link(id, id + 1, lat, lng, rand, offsets, fill, targets, weights);
+            if(id + cols < n) link(id, id + cols, lat, lng, rand, offsets, fill, targets, weights);
+        }
+        return network(names, lat, lng, offsets, targets, weights);
+    }
+
+    /**
+      Builds a random geometric graph: cities scattered uniformly over the continental United States, each joined to every city
+      within a radius chosen to give the requested average number of roads. Roads are 5-50% longer than the straight line.
+      Cities are named "p" followed by their number.
+      @param n The number of cities.
+      @param degree The average number of roads per city.
+      @param seed The seed for the positions and road lengths.
+      @return The graph as a road network.
+    */
+    public static RoadNetwork randomGeometric(int n, double degree, long seed){
+        Random rand = new Random(seed);
+        final double south = 25, west = -125, height = 24, width = 58;
+        final double squash = Math.cos(Math.toRadians(south + height/2)); //shrinks longitude so the neighbourhoods are round
+        String[] names = new String[n];
+        double[] lat = new double[n];
+        double[] lng = new double[n];
+        for(int i = 0; i < n; i++){
+            names[i] = "p" + i;
+            lat[i] = south + rand.nextDouble()*height;
+            lng[i] = west + rand.nextDouble()*width;
+        }
+
+        //bucket the cities into square cells one radius wide, so only neighbouring cells need comparing
+        double radius = Math.sqrt(degree * height * width * squash / (Math.PI * n));
+        int rows = Math.max(1, (int)(height / radius));
+        int cols = Math.max(1, (int)(width * squash / radius));
+        int[] cellStart = new int[rows*cols + 1];
+        int[] cellOf = new int[n];
+        for(int i = 0; i < n; i++){
+            int r = Math.min(rows - 1, (int)((lat[i] - south) / height * rows));
+            int c = Math.min(cols - 1, (int)((lng[i] - west) / width * cols));
+            cellOf[i] = r*cols + c;
+            cellStart[cellOf[i] + 1]++;
+        }
+        for(int k = 0; k < rows*cols; k++){
+            cellStart[k + 1] += cellStart[k];
+        }
+        int[] cellCities = new int[n];
+        int[] next = cellStart.clone();
+        for(int i = 0; i < n; i++){
+            cellCities[next[cellOf[i]]++] = i;
+        }
+
+        //two passes over every close pair: the first counts roads per city, the second fills them in
+        int[] offsets = new int[n + 1];
+        int[] targets = null;
+        double[] weights = null;
+        int[] fill = new int[n];
+        for(int pass = 0; pass < 2; pass++){
+            for(int i = 0; i < n; i++){
+                int r = cellOf[i] / cols, c = cellOf[i] % cols;
+                for(int dr = -1; dr <= 1; dr++){
+                    for(int dc = -1; dc <= 1; dc++){
+                        int rr = r + dr, cc = c + dc;
+                        if(rr < 0 || rr >= rows || cc < 0 || cc >= cols) continue;
+                        int cell = rr*cols + cc;
+                        for(int k = cellStart[cell]; k < cellStart[cell + 1]; k++){
+                            int j = cellCities[k];
+                            if(j <= i) continue;
+                            double dLat = lat[i] - lat[j], dLng = (lng[i] - lng[j]) * squash;
+                            if(dLat*dLat + dLng*dLng > radius*radius) continue;
+                            if(pass == 0){
+                                offsets[i + 1]++;
+                                offsets[j + 1]++;
+                            }
+                            else link(i, j, lat, lng, rand, offsets, fill, targets, weights);
+                        }
+                    }
+                }
+            }
+            if(pass == 0){
+                for(int i = 0; i < n; i++){
+                    offsets[i + 1] += offsets[i];
+                }
+                targets = new int[offsets[n]];
+                weights = new double[offsets[n]];
+            }
+        }
+        return network(names, lat, lng, offsets, targets, weights);
+    }
+
+    //adds a road both ways between two cities of a network under construction
+    private static void link(int a, int b, double[] lat, double[] lng, Random rand, int[] offsets, int[] fill, int[] targets, double[] weights){
+        double length = distance(lat[a], lng[a], lat[b], lng[b]) * (1.05 + rand.nextDouble() * 0.45);
+        targets[offsets[a] + fill[a]] = b;
+        weights[offsets[a] + fill[a]++] = length;
+        targets[offsets[b] + fill[b]] = a;
+        weights[offsets[b] + fill[b]++] = length;
+    }
+
+    //freezes coordinates given in degrees into a road network
+    private static RoadNetwork network(String[] names, double[] lat, double[] lng, int[] offsets, int[] targets, double[] weights){
+        for(int i = 0; i < names.length; i++){
+            lat[i] = Math.toRadians(lat[i]);
+            lng[i] = Math.toRadians(lng[i]);
+        }
+        return new RoadNetwork(names, offsets, targets, weights, lat, lng);
+    }
+
+    //joins two grid cities with a road somewhat longer than the distance between them
+    private static void connect(Graph graph, Random rand, int r1, int c1, int r2, int c2){
+        double straight = distance(30 + r1*SPACING, -120 + c1*SPACING, 30 + r2*SPACING, -120 + c2*SPACING);
+        graph.addEdge(r1 + "," + c1, r2 + "," + c2, straight * (1.05 + rand.nextDouble() * 0.45));
+    }
+
+    /**
+      Calculates the great-circle distance between two points with the haversine formula.
+      @param lat1 The first latitude in degrees.
+      @param lng1 The first longitude in degrees.
+      @param lat2 The second latitude in degrees.
+      @param lng2 The second longitude in degrees.
+      @return The distance in Kilometers.
+    */
+    public static double distance(double lat1, double lng1, double lat2, double lng2){
+        double p1 = Math.toRadians(lat1), p2 = Math.toRadians(lat2);
+        double dLat = p2 - p1;
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat/2) * Math.sin(dLat/2) + Math.cos(p1) * Math.cos(p2) * Math.sin(dLng/2) * Math.sin(dLng/2);
+        return 2 * EARTH_RADIUS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+}
@@ -0,0 +1,58 @@
+package cs361.routing;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+  The graphs the routing benchmarks run on: square grids and random geometric graphs of about the requested number of cities,
+  built straight into RoadNetworks so even ten million cities fit in memory.
+*/
+final class BenchmarkGraphs {
+
+    static final String GRID = "grid";
+    static final String GEOMETRIC = "geometric";
+
+    private static final double GEOMETRIC_DEGREE = 6;
+    private static final long SEED = 42;
+
+    private BenchmarkGraphs(){
+    }
+
+    /**
+      Builds a network.
+      @param kind GRID for a square grid, GEOMETRIC for a random geometric graph.
+      @param cities The number of cities. A grid rounds this to the nearest square.
+      @return The network.
+    */
+    static RoadNetwork build(String kind, int cities){
+        if(kind.equals(GRID)){
+            int side = (int)Math.round(Math.sqrt(cities));
+            return SyntheticGraphs.gridNetwork(side, side, SEED);
+        }
+        if(kind.equals(GEOMETRIC)) return SyntheticGraphs.randomGeometric(cities, GEOMETRIC_DEGREE, SEED);
+        throw new IllegalArgumentException("Unknown graph kind '" + kind + "'");
+    }
+
+    /**
+      Writes a network in the .geo text format Navigator reads: tab-separated cities, a blank line, then each road once.
+      @param net The network to write.
+      @param file The file to write it to.
+      @throws IOException If the file cannot be written.
+    */
+    static void writeGeo(RoadNetwork net, File file) throws IOException{
+        try(PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file)))){
+            for(int i = 0; i < net.countCities(); i++){
+                out.print(net.name(i) + "\t" + Math.toDegrees(net.latitude(i)) + "\t" + Math.toDegrees(net.longitude(i)) + "\n");
+            }
+            out.print("\n");
+            for(int i = 0; i < net.countCities(); i++){
+                for(int e = net.edgeStart(i); e < net.edgeEnd(i); e++){
+                    if(net.target(e) > i) out.print(net.name(i) + "\t" + net.name(net.target(e)) + "\t" + net.weight(e) + "\n");
+                }
+            }
+        }
+    }
+}
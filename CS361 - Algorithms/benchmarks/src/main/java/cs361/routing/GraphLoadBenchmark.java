@@ -0,0 +1,72 @@
+package cs361.routing;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+  Loading a map, on the same graphs as RoutingBenchmark:
+
+    loadGeo      parsing the .geo text format into a Graph with Navigator.loadGraph
+    openBinary   opening the binary graph file with GraphFile.open
+
+  Both files are written once per trial, outside the measurement. Each load is a long single operation, so every iteration
+  times exactly one of them.
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx16g")
+public class GraphLoadBenchmark {
+
+    @Param({BenchmarkGraphs.GRID, BenchmarkGraphs.GEOMETRIC})
+    public String graph;
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int cities;
+
+    private File geo;
+    private File binary;
+
+    @Setup(Level.Trial)
+    public void write() throws IOException{
+        RoadNetwork net = BenchmarkGraphs.build(graph, cities);
+        geo = File.createTempFile("bench", ".geo");
+        binary = File.createTempFile("bench", ".graph");
+        BenchmarkGraphs.writeGeo(net, geo);
+        GraphFile.write(net, binary);
+    }
+
+    @TearDown(Level.Trial)
+    public void delete(){
+        geo.delete();
+        binary.delete();
+    }
+
+    //both return Object, since Graph and RoadNetwork are not visible to the code JMH generates in another package
+    @Benchmark
+    public Object loadGeo(){
+        return Navigator.loadGraph(geo.getPath());
+    }
+
+    @Benchmark
+    public Object openBinary() throws IOException{
+        return GraphFile.open(binary);
+    }
+}
@@ -0,0 +1,102 @@
+package cs361.routing;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+  A* with the indexed heap in PathSearch against the older open list, a java.util.PriorityQueue that queues a fresh entry every
+  time a city's distance improves and skips the stale ones when they are popped:
+
+    indexed   one search with PathSearch, which updates a city's place in its heap instead of queueing it again
+    lazy      the same search with the PriorityQueue, allocating an entry per push and the search arrays per query
+
+  Both cycle through the same fixed set of random city pairs. Run with -prof gc to see what the lazy open list allocates.
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx16g")
+public class HeapBenchmark {
+
+    private static final int PAIRS = 64; //a power of two, so the next pair is picked with a mask
+
+    @Param({BenchmarkGraphs.GRID, BenchmarkGraphs.GEOMETRIC})
+    public String graph;
+
+    @Param({"10000", "100000", "1000000"})
+    public int cities;
+
+    private RoadNetwork net;
+    private int[] from;
+    private int[] to;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void build(){
+        net = BenchmarkGraphs.build(graph, cities);
+        Random rand = new Random(7);
+        from = new int[PAIRS];
+        to = new int[PAIRS];
+        for(int i = 0; i < PAIRS; i++){
+            from[i] = rand.nextInt(net.countCities());
+            to[i] = rand.nextInt(net.countCities());
+        }
+    }
+
+    @Benchmark
+    public double indexed(){
+        int i = next++ & (PAIRS - 1);
+        return PathSearch.forThread(net).search(net, from[i], to[i]);
+    }
+
+    @Benchmark
+    public double lazy(){
+        int i = next++ & (PAIRS - 1);
+        return lazySearch(net, from[i], to[i]);
+    }
+
+    //A* with lazy duplicate insertion into a PriorityQueue
+    private static double lazySearch(RoadNetwork net, int start, int finish){
+        int n = net.countCities();
+        double[] distanceTo = new double[n];
+        boolean[] closed = new boolean[n];
+        Arrays.fill(distanceTo, Double.POSITIVE_INFINITY);
+
+        PriorityQueue<double[]> openList = new PriorityQueue<double[]>(11, (a, b) -> Double.compare(a[0], b[0]));
+        distanceTo[start] = 0.0;
+        openList.add(new double[]{net.crowFliesDistance(start, finish), start});
+
+        while(openList.size() != 0){
+            int current = (int)openList.poll()[1];
+            if(closed[current]) continue;
+            closed[current] = true;
+            if(current == finish) return distanceTo[finish];
+
+            for(int e = net.edgeStart(current); e < net.edgeEnd(current); e++){
+                int next = net.target(e);
+                double distance = distanceTo[current] + net.weight(e);
+                if(closed[next] || distance >= distanceTo[next]) continue;
+                distanceTo[next] = distance;
+                openList.add(new double[]{distance + net.crowFliesDistance(next, finish), next});
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,93 @@
+package cs361.routing;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+  The great-circle heuristic (RoadNetwork.crowFliesDistance, acos with sin and cos per call) against the precomputed
+  ChordHeuristic, first as a bare kernel and then inside full A* searches:
+
+    acosEstimate    one great-circle estimate between two random cities
+    chordEstimate   one chord estimate between the same cities
+    acosSearch      one A* search guided by the great-circle heuristic
+    chordSearch     one A* search guided by the chord heuristic
+
+  Estimates cycle through a table of random pairs large enough to miss the cache on the bigger graphs, the way a search
+  touching cities all over the map does. Searches cycle through a smaller fixed set of pairs.
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx16g")
+public class HeuristicBenchmark {
+
+    private static final int ESTIMATES = 1 << 20; //powers of two, so the next pair is picked with a mask
+    private static final int SEARCHES = 64;
+
+    @Param({BenchmarkGraphs.GRID, BenchmarkGraphs.GEOMETRIC})
+    public String graph;
+
+    @Param({"10000", "100000", "1000000"})
+    public int cities;
+
+    private RoadNetwork net;
+    private ChordHeuristic chord;
+    private int[] a;
+    private int[] b;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void build(){
+        net = BenchmarkGraphs.build(graph, cities);
+        chord = new ChordHeuristic(net);
+        Random rand = new Random(7);
+        a = new int[ESTIMATES];
+        b = new int[ESTIMATES];
+        for(int i = 0; i < ESTIMATES; i++){
+            a[i] = rand.nextInt(net.countCities());
+            b[i] = rand.nextInt(net.countCities());
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public double acosEstimate(){
+        int i = next++ & (ESTIMATES - 1);
+        return net.estimate(a[i], b[i]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public double chordEstimate(){
+        int i = next++ & (ESTIMATES - 1);
+        return chord.estimate(a[i], b[i]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public double acosSearch(){
+        int i = next++ & (SEARCHES - 1);
+        return PathSearch.forThread(net).search(net, a[i], b[i], net);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public double chordSearch(){
+        int i = next++ & (SEARCHES - 1);
+        return PathSearch.forThread(net).search(net, a[i], b[i], chord);
+    }
+}
@@ -0,0 +1,94 @@
+package cs361.routing;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+  Route queries end to end, through Graph, on grids and random geometric graphs from a thousand to ten million cities:
+
+    single    one findPath call (A*), cycling through a fixed set of random city pairs. Also sampled, for latency percentiles.
+    batch     the whole set of pairs through findPaths, spread over the common ForkJoin pool; reported per query
+    cached    one findPath call answered by a route cache that already holds every pair
+
+  Graphs are built once per trial, outside the measurement, and every answer is returned so JMH consumes it.
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx16g")
+public class RoutingBenchmark {
+
+    private static final int PAIRS = 64; //a power of two, so the next pair is picked with a mask
+
+    @Param({BenchmarkGraphs.GRID, BenchmarkGraphs.GEOMETRIC})
+    public String graph;
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int cities;
+
+    private Graph plain;
+    private Graph cached;
+    private String[] firsts;
+    private String[] goals;
+    private List<SimpleEntry<String,String>> pairs;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void build(){
+        RoadNetwork net = BenchmarkGraphs.build(graph, cities);
+        Random rand = new Random(7);
+        firsts = new String[PAIRS];
+        goals = new String[PAIRS];
+        pairs = new ArrayList<SimpleEntry<String,String>>(PAIRS);
+        for(int i = 0; i < PAIRS; i++){
+            firsts[i] = net.name(rand.nextInt(net.countCities()));
+            goals[i] = net.name(rand.nextInt(net.countCities()));
+            pairs.add(new SimpleEntry<String,String>(firsts[i], goals[i]));
+        }
+
+        plain = new Graph(net);
+        cached = new Graph(net);
+        cached.useRouteCache(PAIRS);
+        for(int i = 0; i < PAIRS; i++){
+            cached.findPath(firsts[i], goals[i]);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+    public SimpleEntry<ArrayList<String>,Double> single(){
+        int i = next++ & (PAIRS - 1);
+        return plain.findPath(firsts[i], goals[i]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public List<SimpleEntry<ArrayList<String>,Double>> batch(){
+        return plain.findPaths(pairs);
+    }
+
+    @Benchmark
+    public SimpleEntry<ArrayList<String>,Double> cached(){
+        int i = next++ & (PAIRS - 1);
+        return cached.findPath(firsts[i], goals[i]);
+    }
+}
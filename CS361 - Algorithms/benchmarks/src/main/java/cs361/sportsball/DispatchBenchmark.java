@@ -0,0 +1,152 @@
+package cs361.sportsball;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+  ConcurrentPrioQueue against a PrioQueue behind one lock, the simple way to share it. Every thread plays both ingest and
+  dispatcher, inserting a player and sending one out in turn on a queue that starts with prefill players:
+
+    locked   one insert and one remove on a fused PrioQueue, holding its monitor for both
+    multi    one insert and one remove on a MultiQueue
+
+  Both run on every processor by default; -t 1, -t 2 and so on show how each scales. stripes=0 gives the MultiQueue its
+  default of two stripes per processor.
+
+  A MultiQueue only removes an item near the top, so after each trial of multi its relaxed order is measured as well: a fresh
+  queue of prefill distinct scores is drained on one thread, and the average and worst number of items still waiting with a
+  higher score than the one removed are printed to the run log.
+*/
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(Threads.MAX)
+@Fork(1)
+public class DispatchBenchmark {
+
+    private static final int SCORE_RANGE = 1000;
+
+    @State(Scope.Benchmark)
+    public static class Locked {
+
+        @Param({"100000"})
+        public int prefill;
+
+        PrioQueue<Integer> queue;
+
+        @Setup(Level.Trial)
+        public void fill(){
+            queue = new PrioQueue<Integer>(true);
+            Random rand = new Random(1);
+            for(int i = 0; i < prefill; i++){
+                queue.insert(i, rand.nextInt(SCORE_RANGE));
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Multi {
+
+        @Param({"100000"})
+        public int prefill;
+
+        @Param({"0"})
+        public int stripes;
+
+        ConcurrentPrioQueue<Integer> queue;
+
+        @Setup(Level.Trial)
+        public void fill(){
+            queue = (stripes == 0) ? new ConcurrentPrioQueue<Integer>() : new ConcurrentPrioQueue<Integer>(stripes);
+            Random rand = new Random(1);
+            for(int i = 0; i < prefill; i++){
+                queue.insert(i, rand.nextInt(SCORE_RANGE));
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void rankError(){
+            DispatchBenchmark.rankError(prefill, queue.stripeCount());
+        }
+    }
+
+    @Benchmark
+    public Integer locked(Locked state){
+        int score = ThreadLocalRandom.current().nextInt(SCORE_RANGE);
+        synchronized(state.queue){
+            state.queue.insert(score, score);
+            return state.queue.remove();
+        }
+    }
+
+    @Benchmark
+    public Integer multi(Multi state){
+        int score = ThreadLocalRandom.current().nextInt(SCORE_RANGE);
+        state.queue.insert(score, score);
+        return state.queue.remove();
+    }
+
+    //fills a MultiQueue with distinct scores, drains it, and counts how many better items were still waiting at each removal
+    private static void rankError(int n, int stripes){
+        ConcurrentPrioQueue<Integer> q = new ConcurrentPrioQueue<Integer>(stripes);
+        Random rand = new Random(3);
+        int[] scores = new int[n];
+        for(int i = 0; i < n; i++){
+            scores[i] = i;
+        }
+        for(int i = n - 1; i > 0; i--){
+            int j = rand.nextInt(i + 1);
+            int t = scores[i];
+            scores[i] = scores[j];
+            scores[j] = t;
+        }
+        for(int i = 0; i < n; i++){
+            q.insert(scores[i], scores[i]);
+        }
+
+        //a Fenwick tree over scores counts the items still waiting with a higher score than the one removed
+        int[] tree = new int[n + 1];
+        for(int i = 1; i <= n; i++){
+            tree[i]++;
+            if(i + (i & -i) <= n) tree[i + (i & -i)] += tree[i];
+        }
+        long total = 0;
+        int worst = 0;
+        for(int removed = 0; removed < n; removed++){
+            int score = q.remove();
+            int above = (n - removed) - prefixCount(tree, score + 1);
+            total += above;
+            worst = Math.max(worst, above);
+            for(int i = score + 1; i <= n; i += i & -i){
+                tree[i]--;
+            }
+        }
+        System.out.printf("%nrank error with %d stripes over %d removals: mean %.1f, worst %d%n", stripes, n, (double)total / n, worst);
+    }
+
+    //the number of waiting items with scores below position i
+    private static int prefixCount(int[] tree, int i){
+        int count = 0;
+        for(; i > 0; i -= i & -i){
+            count += tree[i];
+        }
+        return count;
+    }
+}
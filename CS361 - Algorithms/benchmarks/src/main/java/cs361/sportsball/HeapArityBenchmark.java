@@ -0,0 +1,106 @@
+package cs361.sportsball;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+  PrioQueue as a binary, 4-ary and 8-ary heap, with fused keys and with separate score and time arrays, at sizes from a
+  thousand to a hundred million items:
+
+    hold    remove the best item and insert a new one, the steady state of a long-lived queue. The size stays put, so every
+            operation walks the full depth of the heap.
+    load    build a queue of the whole size with insertAll
+
+  Small queues fit in cache and show the cost of comparing more children; large ones show how much fewer levels save once
+  each level is a cache miss. Items come from a small shared pool, so the timings are of the heap rather than of the items.
+
+  Memory: run with -prof gc. load's gc.alloc.rate.norm is the bytes one build allocates, which is the queue's arrays (and, for
+  separate arrays, the smaller copies they outgrew on the way), so the cost of each arity and layout can be read at every
+  size. The arity only changes which positions are parent and child, so it should make no difference there.
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx16g")
+public class HeapArityBenchmark {
+
+    private static final int SCORE_RANGE = 1 << 30;
+    private static final int POOL = 1024;            //powers of two, so the next item and score are picked with a mask
+    private static final int HOLD_SCORES = 1 << 20;
+
+    @Param({"2", "4", "8"})
+    public int arity;
+
+    @Param({"fused", "separate"})
+    public String layout;
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000", "100000000"})
+    public int size;
+
+    private Integer[] pool;
+    private Integer[] items;
+    private int[] scores;
+    private int[] holdScores;
+    private PrioQueue<Integer> queue;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void build(){
+        pool = new Integer[POOL];
+        for(int i = 0; i < POOL; i++){
+            pool[i] = i;
+        }
+        Random rand = new Random(size);
+        items = new Integer[size];
+        scores = new int[size];
+        for(int i = 0; i < size; i++){
+            items[i] = pool[i & (POOL - 1)];
+            scores[i] = rand.nextInt(SCORE_RANGE);
+        }
+        holdScores = new int[HOLD_SCORES];
+        for(int i = 0; i < HOLD_SCORES; i++){
+            holdScores[i] = rand.nextInt(SCORE_RANGE);
+        }
+
+        queue = newQueue();
+        queue.insertAll(items, scores);
+    }
+
+    @Benchmark
+    public Integer hold(){
+        int i = next++;
+        Integer best = queue.remove();
+        queue.insert(pool[i & (POOL - 1)], holdScores[i & (HOLD_SCORES - 1)]);
+        return best;
+    }
+
+    //returns Object, since PrioQueue is not visible to the code JMH generates in another package
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 5)
+    public Object load(){
+        PrioQueue<Integer> q = newQueue();
+        q.insertAll(items, scores);
+        return q;
+    }
+
+    private PrioQueue<Integer> newQueue(){
+        return new PrioQueue<Integer>(layout.equals("fused"), arity);
+    }
+}
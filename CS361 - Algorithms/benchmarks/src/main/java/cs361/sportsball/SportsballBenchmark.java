@@ -0,0 +1,82 @@
+package cs361.sportsball;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+  PrioQueue on a Sportsball-style workload, with separate score and time arrays and with fused keys. The workload is a stream
+  of roster lines: players with scores from a small range, so ties are common, mixed with "GO!" lines that send the best
+  waiting player into the game. Each call plays the whole stream through a new queue:
+
+    mixed   players and GO! lines in the order they come, as Sportsball reads them
+    bulk    the whole roster first, then every player sent out, the way a long queue builds up
+
+  The workload is generated once per trial, so the timings only cover the queue.
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SportsballBenchmark {
+
+    private static final int SCORE_RANGE = 100;
+
+    @Param({"separate", "fused"})
+    public String layout;
+
+    @Param({"2000000"})
+    public int lines;
+
+    private int[] workload; //a score per player line, -1 for GO!
+    private Integer[] players;
+
+    @Setup(Level.Trial)
+    public void build(){
+        Random rand = new Random(42);
+        workload = new int[lines];
+        players = new Integer[lines];
+        for(int i = 0; i < lines; i++){
+            workload[i] = (rand.nextInt(5) < 3) ? rand.nextInt(SCORE_RANGE) : -1;
+            players[i] = i;
+        }
+    }
+
+    @Benchmark
+    public int mixed(){
+        PrioQueue<Integer> q = new PrioQueue<Integer>(layout.equals("fused"));
+        int sum = 0;
+        for(int i = 0; i < lines; i++){
+            if(workload[i] >= 0) q.insert(players[i], workload[i]);
+            else if(q.getSize() > 0) sum += q.remove();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int bulk(){
+        PrioQueue<Integer> q = new PrioQueue<Integer>(layout.equals("fused"));
+        int sum = 0;
+        for(int i = 0; i < lines; i++){
+            if(workload[i] >= 0) q.insert(players[i], workload[i]);
+        }
+        while(q.getSize() > 0){
+            sum += q.remove();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,94 @@
+package cs361.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+  Yen's K shortest loopless routes: every route must run from start to finish over real roads without visiting a city twice,
+  no route may repeat, the first must be a shortest path, and lengths must never decrease, within one answer or as k grows.
+*/
+class AlternativeRoutesTest {
+
+    private static final double EPSILON = 1e-9;
+    private static final int K = 8;
+
+    @Test
+    void routesAreLooplessDistinctAndInOrder(){
+        RoadNetwork net = SyntheticGraphs.gridNetwork(15, 15, 1);
+        Random rand = new Random(2);
+        for(int pair = 0; pair < 20; pair++){
+            int start = rand.nextInt(net.countCities());
+            int finish = rand.nextInt(net.countCities());
+            if(start == finish) continue;
+            ArrayList<AlternativeRoutes.Route> routes = AlternativeRoutes.find(net, start, finish, K);
+            assertEquals(K, routes.size()); //a grid has far more than K routes between any two cities
+
+            assertEquals(Dijkstra.distances(net, start)[finish], routes.get(0).distance(), EPSILON);
+            HashSet<List<Integer>> seen = new HashSet<List<Integer>>();
+            double last = 0;
+            for(AlternativeRoutes.Route r : routes){
+                int[] cities = r.cities();
+                assertEquals(start, cities[0]);
+                assertEquals(finish, cities[cities.length - 1]);
+                assertEquals(r.distance(), Paths.length(net, cities), EPSILON);
+                assertTrue(isLoopless(cities), "route visits a city twice");
+                assertTrue(seen.add(asList(cities)), "route repeated");
+                assertTrue(r.distance() >= last - EPSILON, "routes out of order");
+                last = r.distance();
+            }
+        }
+    }
+
+    @Test
+    void lengthsNeverDecreaseAsKGrows(){
+        RoadNetwork net = SyntheticGraphs.gridNetwork(12, 12, 3);
+        int start = 0, finish = net.countCities() - 1;
+        double[] previous = new double[0];
+        for(int k = 1; k <= K; k++){
+            ArrayList<AlternativeRoutes.Route> routes = AlternativeRoutes.find(net, start, finish, k);
+            assertEquals(k, routes.size());
+            //asking for more routes only adds longer ones after the routes a smaller k found
+            for(int i = 0; i < previous.length; i++){
+                assertEquals(previous[i], routes.get(i).distance(), EPSILON, "route " + i + " with k=" + k);
+            }
+            if(k > 1) assertTrue(routes.get(k - 1).distance() >= routes.get(k - 2).distance() - EPSILON);
+            previous = new double[k];
+            for(int i = 0; i < k; i++){
+                previous[i] = routes.get(i).distance();
+            }
+        }
+    }
+
+    @Test
+    void unreachablePairsHaveNoRoutes(){
+        RoadNetwork grid = SyntheticGraphs.gridNetwork(5, 5, 1);
+        Graph graph = new Graph(grid);
+        graph.addCity("island", 0, 0);
+        assertTrue(graph.alternativeRoutes(grid.name(0), "island", 3).isEmpty());
+        RoadNetwork net = graph.freeze();
+        assertTrue(AlternativeRoutes.find(net, net.id(grid.name(0)), net.id("island"), 3).isEmpty());
+    }
+
+    private static boolean isLoopless(int[] cities){
+        HashSet<Integer> visited = new HashSet<Integer>();
+        for(int c : cities){
+            if(!visited.add(c)) return false;
+        }
+        return true;
+    }
+
+    private static List<Integer> asList(int[] cities){
+        ArrayList<Integer> list = new ArrayList<Integer>(cities.length);
+        for(int c : cities){
+            list.add(c);
+        }
+        return list;
+    }
+}
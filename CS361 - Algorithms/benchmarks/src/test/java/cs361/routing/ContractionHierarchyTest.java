@@ -0,0 +1,60 @@
+package cs361.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+  A Contraction Hierarchy against a plain Dijkstra on the original network: distances must match exactly, unreachable pairs
+  must report -1, and an unpacked route must use only original roads and add up to its distance.
+*/
+class ContractionHierarchyTest {
+
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    void distancesMatchDijkstraOnAGrid(){
+        assertMatchesDijkstra(SyntheticGraphs.gridNetwork(30, 30, 1));
+    }
+
+    @Test
+    void distancesMatchDijkstraOnAGeometricGraph(){
+        assertMatchesDijkstra(SyntheticGraphs.randomGeometric(1500, 2.5, 5));
+    }
+
+    @Test
+    void unpackedRoutesUseOriginalRoads(){
+        RoadNetwork net = SyntheticGraphs.gridNetwork(30, 30, 2);
+        ContractionHierarchy ch = ContractionHierarchy.build(net);
+        Random rand = new Random(3);
+        for(int i = 0; i < 100; i++){
+            String first = net.name(rand.nextInt(net.countCities()));
+            String goal = net.name(rand.nextInt(net.countCities()));
+            SimpleEntry<ArrayList<String>,Double> route = ch.findPath(first, goal);
+            ArrayList<String> path = route.getKey();
+            assertEquals(first, path.get(0));
+            assertEquals(goal, path.get(path.size() - 1));
+            assertEquals(route.getValue(), Paths.length(net, path), EPSILON);
+        }
+        assertNull(ch.findPath("nowhere", net.name(0)));
+    }
+
+    private static void assertMatchesDijkstra(RoadNetwork net){
+        ContractionHierarchy ch = ContractionHierarchy.build(net);
+        Random rand = new Random(7);
+        for(int s = 0; s < 10; s++){
+            int start = rand.nextInt(net.countCities());
+            double[] expected = Dijkstra.distances(net, start);
+            for(int t = 0; t < 30; t++){
+                int finish = rand.nextInt(net.countCities());
+                double want = (expected[finish] == Double.POSITIVE_INFINITY) ? -1 : expected[finish];
+                assertEquals(want, ch.distance(start, finish), EPSILON, "from " + start + " to " + finish);
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package cs361.routing;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+  A textbook Dijkstra over a RoadNetwork, written independently of PathSearch so the tests have something plain to compare the
+  project's searches against.
+*/
+final class Dijkstra {
+
+    private Dijkstra(){
+    }
+
+    /**
+      Finds the road distance from one city to every city.
+      @param net The network to search.
+      @param source The id of the city to measure from.
+      @return The distance to each city by id, positive infinity where there is no path.
+    */
+    static double[] distances(RoadNetwork net, int source){
+        double[] dist = new double[net.countCities()];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        dist[source] = 0;
+        PriorityQueue<double[]> open = new PriorityQueue<double[]>((a, b) -> Double.compare(a[0], b[0]));
+        open.add(new double[]{0, source});
+        while(!open.isEmpty()){
+            double[] top = open.poll();
+            int city = (int)top[1];
+            if(top[0] > dist[city]) continue;
+            for(int e = net.edgeStart(city); e < net.edgeEnd(city); e++){
+                double d = dist[city] + net.weight(e);
+                if(d < dist[net.target(e)]){
+                    dist[net.target(e)] = d;
+                    open.add(new double[]{d, net.target(e)});
+                }
+            }
+        }
+        return dist;
+    }
+}
@@ -0,0 +1,87 @@
+package cs361.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+  A shortest-path tree kept up to date by a Graph against a plain Dijkstra run from scratch on the edited graph: after every
+  edit, every city's distance must match, and every route the tree hands out must add up to its distance.
+*/
+class DynamicShortestPathTreeTest {
+
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    void matchesDijkstraAfterRoadEdits(){
+        Graph graph = SyntheticGraphs.grid(12, 12, 1);
+        ArrayList<String> cities = names(graph.freeze());
+        String source = cities.get(0);
+        DynamicShortestPathTree tree = graph.shortestPathTree(source);
+        Random rand = new Random(2);
+        for(int edit = 0; edit < 300; edit++){
+            String a = cities.get(rand.nextInt(cities.size()));
+            String b = cities.get(rand.nextInt(cities.size()));
+            if(a.equals(b)) continue;
+            if(rand.nextInt(3) == 0) graph.deleteEdge(a, b);
+            else graph.addEdge(a, b, 10 + rand.nextDouble() * 400); //new roads, and shorter or longer old ones
+            assertMatchesDijkstra(graph, tree, source, "edit " + edit);
+        }
+    }
+
+    @Test
+    void matchesDijkstraAfterCityEdits(){
+        Graph graph = SyntheticGraphs.grid(12, 12, 3);
+        ArrayList<String> cities = names(graph.freeze());
+        String source = cities.get(0);
+        DynamicShortestPathTree tree = graph.shortestPathTree(source);
+        Random rand = new Random(4);
+        for(int edit = 0; edit < 60; edit++){
+            String city = cities.get(1 + rand.nextInt(cities.size() - 1)); //never the source
+            switch(rand.nextInt(4)){
+                case 0:
+                    graph.deleteCity(city);
+                    graph.addCity(city, 0, 0);
+                    break;
+                case 1:
+                    graph.addCity(city, 0, 0); //re-adding drops its roads, both ways
+                    break;
+                case 2:
+                    String added = "added" + edit;
+                    graph.addCity(added, 0, 0);
+                    graph.addEdge(added, city, 50);
+                    graph.addEdge(added, source, 50);
+                    cities.add(added);
+                    break;
+                default:
+                    graph.addEdge(city, cities.get(rand.nextInt(cities.size())), 30);
+                    break;
+            }
+            assertMatchesDijkstra(graph, tree, source, "edit " + edit);
+        }
+    }
+
+    private static void assertMatchesDijkstra(Graph graph, DynamicShortestPathTree tree, String source, String when){
+        RoadNetwork net = graph.freeze();
+        double[] expected = Dijkstra.distances(net, net.id(source));
+        for(int c = 0; c < net.countCities(); c++){
+            String name = net.name(c);
+            double want = (expected[c] == Double.POSITIVE_INFINITY) ? -1 : expected[c];
+            assertEquals(want, tree.distance(name), EPSILON, name + " after " + when);
+            SimpleEntry<ArrayList<String>,Double> route = tree.findPath(name);
+            if(want >= 0) assertEquals(want, Paths.length(net, route.getKey()), EPSILON, name + " route after " + when);
+        }
+    }
+
+    private static ArrayList<String> names(RoadNetwork net){
+        ArrayList<String> names = new ArrayList<String>(net.countCities());
+        for(int c = 0; c < net.countCities(); c++){
+            names.add(net.name(c));
+        }
+        return names;
+    }
+}
@@ -0,0 +1,69 @@
+package cs361.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+  Writing a network with GraphFile and opening it again must give back the same network: the same cities under the same ids and
+  names, the same coordinates, and the same roads in the same order.
+*/
+class GraphFileTest {
+
+    @TempDir
+    File dir;
+
+    @Test
+    void gridRoundTrips() throws IOException{
+        assertRoundTrips(SyntheticGraphs.gridNetwork(40, 40, 1), new File(dir, "grid.graph"));
+    }
+
+    @Test
+    void geometricGraphRoundTrips() throws IOException{
+        assertRoundTrips(SyntheticGraphs.randomGeometric(2000, 6, 2), new File(dir, "geometric.graph"));
+    }
+
+    @Test
+    void editedGraphRoundTrips() throws IOException{
+        Graph graph = new Graph();
+        graph.addCity("Boston", 42.36, -71.06);
+        graph.addCity("Worcester", 42.26, -71.80);
+        graph.addCity("Providence", 41.82, -71.41);
+        graph.addCity("Ümeå", 63.83, 20.26); //names are stored as UTF-8
+        graph.addEdge("Boston", "Worcester", 64.4);
+        graph.addEdge("Boston", "Providence", 80.5);
+        graph.addEdge("Worcester", "Providence", 61.2);
+        assertRoundTrips(graph.freeze(), new File(dir, "edited.graph"));
+    }
+
+    @Test
+    void overwritesAnOlderFile() throws IOException{
+        File file = new File(dir, "twice.graph");
+        GraphFile.write(SyntheticGraphs.gridNetwork(60, 60, 3), file);
+        assertRoundTrips(SyntheticGraphs.gridNetwork(5, 5, 4), file);
+    }
+
+    private static void assertRoundTrips(RoadNetwork net, File file) throws IOException{
+        GraphFile.write(net, file);
+        RoadNetwork read = GraphFile.open(file);
+        assertEquals(net.countCities(), read.countCities());
+        assertEquals(net.countEdges(), read.countEdges());
+        for(int i = 0; i < net.countCities(); i++){
+            assertEquals(net.name(i), read.name(i));
+            assertEquals(i, read.id(net.name(i)));
+            assertEquals(net.latitude(i), read.latitude(i));
+            assertEquals(net.longitude(i), read.longitude(i));
+            assertEquals(net.edgeStart(i), read.edgeStart(i));
+            assertEquals(net.edgeEnd(i), read.edgeEnd(i));
+        }
+        for(int e = 0; e < net.countEdges(); e++){
+            assertEquals(net.target(e), read.target(e));
+            assertEquals(net.weight(e), read.weight(e));
+        }
+        assertEquals(-1, read.id("no such city"));
+    }
+}
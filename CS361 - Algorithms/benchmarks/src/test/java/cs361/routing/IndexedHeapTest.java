@@ -0,0 +1,80 @@
+package cs361.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+  IndexedHeap against a plain array of keys: ids come out in key order at every arity, whether they were inserted with their
+  final key or lowered to it later.
+*/
+class IndexedHeapTest {
+
+    private static final int IDS = 5000;
+
+    @Test
+    void removesInKeyOrderAtEveryArity(){
+        for(int arity = 2; arity <= 8; arity++){
+            Random rand = new Random(arity);
+            IndexedHeap heap = new IndexedHeap(arity, IDS);
+            double[] keys = new double[IDS];
+            for(int id = 0; id < IDS; id++){
+                keys[id] = rand.nextDouble() * 1000;
+                heap.insert(id, keys[id]);
+            }
+            //lower a third of the keys after the fact, some below every other key
+            for(int id = 0; id < IDS; id += 3){
+                keys[id] = keys[id] / 2 - 500;
+                heap.decreaseKey(id, keys[id]);
+            }
+
+            double[] sorted = keys.clone();
+            Arrays.sort(sorted);
+            for(int i = 0; i < IDS; i++){
+                assertEquals(sorted[i], heap.minKey(), "arity " + arity + ", removal " + i);
+                int id = heap.removeMin();
+                assertEquals(keys[id], sorted[i], "arity " + arity + ", removal " + i);
+                assertFalse(heap.contains(id));
+            }
+            assertTrue(heap.isEmpty());
+        }
+    }
+
+    @Test
+    void insertOrDecreaseKeepsTheSmallerKey(){
+        IndexedHeap heap = new IndexedHeap(IndexedHeap.DEFAULT_ARITY, 3);
+        heap.insertOrDecrease(0, 5);
+        heap.insertOrDecrease(1, 3);
+        heap.insertOrDecrease(0, 1);
+        heap.insertOrDecrease(1, 4); //larger than 3, so ignored
+        heap.insertOrDecrease(2, 2);
+        assertEquals(3, heap.size());
+        assertEquals(3.0, heap.keyOf(1));
+        assertEquals(0, heap.removeMin());
+        assertEquals(2, heap.removeMin());
+        assertEquals(1, heap.removeMin());
+    }
+
+    @Test
+    void growsWithoutLosingIds(){
+        IndexedHeap heap = new IndexedHeap(IndexedHeap.DEFAULT_ARITY, 2);
+        heap.insert(1, 10);
+        heap.ensureCapacity(10);
+        heap.insert(9, 5);
+        heap.insert(4, 7);
+        assertEquals(9, heap.removeMin());
+        assertEquals(4, heap.removeMin());
+        assertEquals(1, heap.removeMin());
+    }
+
+    @Test
+    void rejectsAnArityBelowTwo(){
+        assertThrows(IllegalArgumentException.class, () -> new IndexedHeap(1, 10));
+    }
+}
@@ -0,0 +1,77 @@
+package cs361.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+  Forward and bidirectional A* against a plain Dijkstra: both must find exactly the shortest distance between random pairs of
+  cities, report -1 where there is no path, and return a path whose roads add up to the distance they report.
+*/
+class PathSearchTest {
+
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    void forwardSearchMatchesDijkstraOnAGrid(){
+        assertMatchesDijkstra(SyntheticGraphs.gridNetwork(40, 40, 1), false);
+    }
+
+    @Test
+    void bidirectionalSearchMatchesDijkstraOnAGrid(){
+        assertMatchesDijkstra(SyntheticGraphs.gridNetwork(40, 40, 1), true);
+    }
+
+    @Test
+    void bothSearchesMatchDijkstraOnAGeometricGraph(){
+        //sparse, so the graph can fall apart into pieces with no path between them
+        RoadNetwork net = SyntheticGraphs.randomGeometric(3000, 2.5, 5);
+        assertMatchesDijkstra(net, false);
+        assertMatchesDijkstra(net, true);
+    }
+
+    @Test
+    void bothSearchesReturnTheRoadsTheyMeasured(){
+        Graph graph = new Graph(SyntheticGraphs.gridNetwork(30, 30, 2));
+        RoadNetwork net = graph.freeze();
+        Random rand = new Random(3);
+        for(int i = 0; i < 50; i++){
+            String first = net.name(rand.nextInt(net.countCities()));
+            String goal = net.name(rand.nextInt(net.countCities()));
+            for(boolean bidirectional : new boolean[]{false, true}){
+                SimpleEntry<ArrayList<String>,Double> route = graph.findPath(first, goal, bidirectional);
+                ArrayList<String> path = route.getKey();
+                assertEquals(first, path.get(0));
+                assertEquals(goal, path.get(path.size() - 1));
+                assertEquals(route.getValue(), Paths.length(net, path), EPSILON);
+            }
+        }
+    }
+
+    @Test
+    void unknownCitiesHaveNoRoute(){
+        Graph graph = new Graph(SyntheticGraphs.gridNetwork(5, 5, 1));
+        assertNull(graph.findPath("nowhere", graph.freeze().name(0)));
+        assertNull(graph.findPath(graph.freeze().name(0), "nowhere", true));
+    }
+
+    private static void assertMatchesDijkstra(RoadNetwork net, boolean bidirectional){
+        Random rand = new Random(7);
+        PathSearch search = PathSearch.forThread(net);
+        for(int s = 0; s < 10; s++){
+            int start = rand.nextInt(net.countCities());
+            double[] expected = Dijkstra.distances(net, start);
+            for(int t = 0; t < 30; t++){
+                int finish = rand.nextInt(net.countCities());
+                double found = bidirectional ? search.searchBidirectional(net, start, finish, net) : search.search(net, start, finish);
+                double want = (expected[finish] == Double.POSITIVE_INFINITY) ? -1 : expected[finish];
+                assertEquals(want, found, EPSILON, "from " + start + " to " + finish);
+            }
+        }
+    }
+}
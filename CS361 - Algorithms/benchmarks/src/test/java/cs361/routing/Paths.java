@@ -0,0 +1,48 @@
+package cs361.routing;
+
+import java.util.List;
+
+/**
+  Helpers for checking the paths the searches return.
+*/
+final class Paths {
+
+    private Paths(){
+    }
+
+    /**
+      Adds up the roads along a path.
+      @param net The network the path runs on.
+      @param path The city ids along the path, in order.
+      @return The path's length, or NaN if two cities in a row have no road between them.
+    */
+    static double length(RoadNetwork net, int[] path){
+        double total = 0;
+        for(int i = 1; i < path.length; i++){
+            total += road(net, path[i - 1], path[i]);
+        }
+        return total;
+    }
+
+    /**
+      Adds up the roads along a path of city names, such as one from Graph.findPath.
+      @param net The network the path runs on.
+      @param path The city names along the path, in order.
+      @return The path's length, or NaN if two cities in a row have no road between them.
+    */
+    static double length(RoadNetwork net, List<String> path){
+        int[] ids = new int[path.size()];
+        for(int i = 0; i < ids.length; i++){
+            ids[i] = net.id(path.get(i));
+        }
+        return length(net, ids);
+    }
+
+    //the length of the road from a to b, or NaN if there is none
+    private static double road(RoadNetwork net, int a, int b){
+        for(int e = net.edgeStart(a); e < net.edgeEnd(a); e++){
+            if(net.target(e) == b) return net.weight(e);
+        }
+        return Double.NaN;
+    }
+}
@@ -0,0 +1,137 @@
+package cs361.sportsball;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+  PrioQueue against a java.util.PriorityQueue that orders by score, then by arrival: every removal must be the item with the
+  greatest score, and of those the one that arrived first. Scores come from a small range so ties are common.
+
+  The binary queue with separate score and time arrays is not checked: it keeps the original assignment's remove, which swaps
+  the top item with a child before checking that the child outranks it, so it can send items out of order.
+*/
+class PrioQueueTest {
+
+    private static final int SCORE_RANGE = 50;
+
+    @Test
+    void fusedKeysLeaveByScoreThenArrival(){
+        playRandom(new PrioQueue<Integer>(true), 1);
+    }
+
+    @Test
+    void wideHeapsLeaveByScoreThenArrivalInBothLayouts(){
+        for(int arity = 3; arity <= 8; arity++){
+            playRandom(new PrioQueue<Integer>(true, arity), arity);
+            playRandom(new PrioQueue<Integer>(false, arity), arity);
+        }
+    }
+
+    @Test
+    void rejectsAnArityBelowTwo(){
+        assertThrows(IllegalArgumentException.class, () -> new PrioQueue<Integer>(false, 1));
+        assertThrows(IllegalArgumentException.class, () -> new PrioQueue<Integer>(1));
+    }
+
+    @Test
+    void insertAllKeepsBatchOrderAmongTies(){
+        //the first batch is heapified into an empty queue, the small one is inserted item by item, the large one heapified
+        PrioQueue<Integer> q = new PrioQueue<Integer>(true);
+        Model model = new Model();
+        Random rand = new Random(3);
+        int next = 0;
+        for(int count : new int[]{1000, 10, 5000}){
+            Integer[] items = new Integer[count];
+            int[] scores = new int[count];
+            for(int i = 0; i < count; i++){
+                items[i] = next++;
+                scores[i] = rand.nextInt(SCORE_RANGE);
+                model.insert(items[i], scores[i]);
+            }
+            q.insertAll(items, scores);
+            assertEquals(model.size(), q.getSize());
+            for(int i = 0; i < count / 4; i++){
+                assertEquals(model.remove(), q.remove().intValue());
+            }
+        }
+        drain(q, model);
+    }
+
+    @Test
+    void removeBatchMatchesRemove(){
+        PrioQueue<Integer> q = new PrioQueue<Integer>(true);
+        Model model = new Model();
+        Random rand = new Random(4);
+        for(int i = 0; i < 1000; i++){
+            int score = rand.nextInt(SCORE_RANGE);
+            q.insert(i, score);
+            model.insert(i, score);
+        }
+        Integer[] out = new Integer[300];
+        for(int expected : new int[]{300, 300, 300, 100, 0}){
+            assertEquals(expected, q.removeBatch(300, out));
+            for(int i = 0; i < expected; i++){
+                assertEquals(model.remove(), out[i].intValue());
+            }
+        }
+    }
+
+    @Test
+    void removeBatchRejectsABadCount(){
+        PrioQueue<Integer> q = new PrioQueue<Integer>(true);
+        q.insert(1, 1);
+        assertThrows(IllegalArgumentException.class, () -> q.removeBatch(-1, new Integer[4]));
+        assertThrows(IllegalArgumentException.class, () -> q.removeBatch(5, new Integer[4]));
+        assertEquals(1, q.getSize());
+    }
+
+    //plays a random mix of inserts and removes through a queue, checking each removal against the model
+    private static void playRandom(PrioQueue<Integer> q, long seed){
+        Model model = new Model();
+        Random rand = new Random(seed);
+        for(int i = 0; i < 100000; i++){
+            if(rand.nextInt(5) < 3){
+                int score = rand.nextInt(SCORE_RANGE);
+                q.insert(i, score);
+                model.insert(i, score);
+            }
+            else if(q.getSize() > 0){
+                assertEquals(model.remove(), q.remove().intValue(), "removal after operation " + i);
+            }
+            assertEquals(model.size(), q.getSize());
+        }
+        drain(q, model);
+    }
+
+    //removes everything left, checking each removal against the model
+    private static void drain(PrioQueue<Integer> q, Model model){
+        while(model.size() > 0){
+            assertEquals(model.remove(), q.remove().intValue());
+        }
+        assertEquals(0, q.getSize());
+    }
+
+    //the order a PrioQueue promises: greatest score first, then first come, first served
+    private static final class Model {
+        private final PriorityQueue<long[]> queue = new PriorityQueue<long[]>((a, b) ->
+            (a[0] != b[0]) ? Long.compare(b[0], a[0]) : Long.compare(a[1], b[1]));
+        private long arrivals;
+
+        void insert(int item, int score){
+            queue.add(new long[]{score, arrivals++, item});
+        }
+
+        int remove(){
+            return (int)queue.poll()[2];
+        }
+
+        int size(){
+            return queue.size();
+        }
+    }
+}